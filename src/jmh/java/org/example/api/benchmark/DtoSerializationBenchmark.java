@@ -0,0 +1,55 @@
+package org.example.api.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.example.api.dto.BookDetailsDTO;
+import org.example.api.dto.UserDTO;
+import org.example.api.mapper.LibraryMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of mapped DTO trees, using an ObjectMapper configured the way
+ * Spring Boot configures the one behind the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DtoSerializationBenchmark {
+    @Param({"4", "64", "512"})
+    private int copies;
+
+    @Param({"1", "20"})
+    private int loansPerBorrower;
+
+    private ObjectWriter writer;
+    private BookDetailsDTO bookDetails;
+    private UserDTO user;
+
+    @Setup
+    public void setUp() {
+        LibraryMapper mapper = new LibraryMapper();
+        writer = Jackson2ObjectMapperBuilder.json().build().writer();
+        bookDetails = mapper.toBookDetailsDTO(LibraryGraphs.book(copies, loansPerBorrower));
+        user = mapper.toUserDTO(LibraryGraphs.user(loansPerBorrower));
+    }
+
+    @Benchmark
+    public byte[] bookDetails() throws JsonProcessingException {
+        return writer.writeValueAsBytes(bookDetails);
+    }
+
+    @Benchmark
+    public byte[] userWithLoans() throws JsonProcessingException {
+        return writer.writeValueAsBytes(user);
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.api.benchmark;
+
+import org.example.api.entity.Book;
+import org.example.api.entity.Inventory;
+import org.example.api.entity.User;
+import org.example.api.repository.BookInventoryRow;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Synthetic entity graphs shaped like the catalog: a title with many copies, about half of them on loan,
+ * to borrowers who each hold several other books. A fixed seed keeps runs comparable across commits.
+ */
+final class LibraryGraphs {
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    private LibraryGraphs() {
+    }
+
+    static Book book(int copies, int loansPerBorrower) {
+        Random random = new Random(copies * 31L + loansPerBorrower);
+        Book book = newBook(random, 0);
+        List<Inventory> inventories = new ArrayList<>(copies);
+        for (int i = 0; i < copies; i++) {
+            Inventory inventory = newInventory(random, book);
+            if (random.nextBoolean()) {
+                User borrower = user(random, loansPerBorrower - 1);
+                lend(inventory, borrower, random);
+            }
+            inventories.add(inventory);
+        }
+        book.setInventories(inventories);
+        return book;
+    }
+
+    static User user(int loans) {
+        return user(new Random(loans), loans);
+    }
+
+    static List<BookInventoryRow> rows(Book book) {
+        return book.getInventories().stream()
+                .map(inventory -> {
+                    User user = inventory.getUser();
+                    return new BookInventoryRow(book.getId(), book.getTitle(), book.getAuthor(), book.getImage(),
+                            inventory.getId(), inventory.getLoanDate(),
+                            user == null ? null : user.getId(),
+                            user == null ? null : user.getUsername(),
+                            user == null ? null : user.getRole());
+                })
+                .toList();
+    }
+
+    private static User user(Random random, int loans) {
+        User user = new User(new UUID(random.nextLong(), random.nextLong()), "reader" + random.nextInt(100_000),
+                "{bcrypt}$2a$10$" + "x".repeat(53), "USER", new ArrayList<>(loans + 1));
+        for (int i = 0; i < loans; i++) {
+            Book other = newBook(random, i + 1);
+            lend(newInventory(random, other), user, random);
+        }
+        return user;
+    }
+
+    private static void lend(Inventory inventory, User user, Random random) {
+        inventory.setUser(user);
+        inventory.setLoanDate(NOW.minusSeconds(random.nextInt(30 * 24 * 3600)));
+        user.getInventories().add(inventory);
+    }
+
+    private static Book newBook(Random random, int n) {
+        return new Book(new UUID(random.nextLong(), random.nextLong()), "The Book of Many Pages, Volume " + n,
+                "Author " + random.nextInt(10_000), "https://images.example.org/covers/" + random.nextInt() + ".jpg",
+                new ArrayList<>());
+    }
+
+    private static Inventory newInventory(Random random, Book book) {
+        return new Inventory(new UUID(random.nextLong(), random.nextLong()), book, null, null);
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.api.benchmark;
+
+import org.example.api.dto.BookDetailsDTO;
+import org.example.api.dto.UserDTO;
+import org.example.api.entity.Book;
+import org.example.api.entity.User;
+import org.example.api.mapper.LibraryMapper;
+import org.example.api.repository.BookInventoryRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the entity-to-DTO mapping on the read paths. Run with {@code -prof gc} (the profile
+ * default) to get the allocation rate per operation next to the score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LibraryMapperBenchmark {
+    @Param({"4", "64", "512"})
+    private int copies;
+
+    @Param({"1", "20"})
+    private int loansPerBorrower;
+
+    private final LibraryMapper mapper = new LibraryMapper();
+    private Book book;
+    private List<BookInventoryRow> rows;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        book = LibraryGraphs.book(copies, loansPerBorrower);
+        rows = LibraryGraphs.rows(book);
+        user = LibraryGraphs.user(loansPerBorrower);
+    }
+
+    @Benchmark
+    public BookDetailsDTO bookDetailsFromEntities() {
+        return mapper.toBookDetailsDTO(book);
+    }
+
+    @Benchmark
+    public BookDetailsDTO bookDetailsFromRows() {
+        return mapper.toBookDetailsDTOFromRows(rows);
+    }
+
+    @Benchmark
+    public UserDTO userWithLoans() {
+        return mapper.toUserDTO(user);
+    }
+}
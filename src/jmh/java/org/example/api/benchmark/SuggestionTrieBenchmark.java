@@ -0,0 +1,110 @@
+package org.example.api.benchmark;
+
+import org.example.api.dto.BookSuggestionDTO;
+import org.example.api.service.BookSuggestionTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead lookups against a synthetic catalog of the given size: titles of two to six words drawn from
+ * a skewed vocabulary, and authors shared by about five books each. {@code find} is the walk over the
+ * precomputed completions and should allocate nothing; {@code suggest} adds folding and the DTOs.
+ * The trie's build time and estimated footprint are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SuggestionTrieBenchmark {
+    private static final int VOCABULARY = 20_000;
+    private static final int PREFIXES = 4096;
+
+    @Param({"1000000"})
+    private int books;
+
+    private BookSuggestionTrie trie;
+    private String[] foldedPrefixes;
+    private String[] typedPrefixes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(books);
+        String[] words = new String[VOCABULARY];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = word(random, 3 + random.nextInt(8));
+        }
+        String[] authors = new String[books / 5 + 1];
+        for (int i = 0; i < authors.length; i++) {
+            authors[i] = capitalize(word(random, 4 + random.nextInt(5))) + " "
+                    + capitalize(word(random, 5 + random.nextInt(6)));
+        }
+
+        long start = System.nanoTime();
+        BookSuggestionTrie.Builder builder = BookSuggestionTrie.builder();
+        String[] titles = new String[books];
+        for (int i = 0; i < books; i++) {
+            StringBuilder title = new StringBuilder();
+            int length = 2 + random.nextInt(5);
+            for (int w = 0; w < length; w++) {
+                // Squaring skews the draw towards the start of the vocabulary, like real title words
+                double skewed = random.nextDouble() * random.nextDouble();
+                title.append(w == 0 ? "" : " ").append(capitalize(words[(int) (skewed * words.length)]));
+            }
+            titles[i] = title.toString();
+            builder.add(new UUID(random.nextLong(), random.nextLong()), titles[i],
+                    authors[random.nextInt(authors.length)], 1 + random.nextInt(8));
+        }
+        trie = builder.build();
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        foldedPrefixes = new String[PREFIXES];
+        typedPrefixes = new String[PREFIXES];
+        for (int i = 0; i < PREFIXES; i++) {
+            String title = titles[random.nextInt(books)];
+            typedPrefixes[i] = title.substring(0, Math.min(title.length(), 1 + random.nextInt(12)));
+            foldedPrefixes[i] = typedPrefixes[i].toLowerCase();
+        }
+        System.out.printf("%nbooks: %d, suggestions: %d, nodes: %d, estimated size: %.1f MB, build: %d ms%n",
+                books, trie.size(), trie.nodeCount(), trie.estimatedBytes() / (1024.0 * 1024.0), buildMillis);
+    }
+
+    @Benchmark
+    public void find(Blackhole blackhole) {
+        int node = trie.find(foldedPrefixes[next++ & (PREFIXES - 1)]);
+        if (node >= 0) {
+            for (int i = 0; i < trie.completionCount(node); i++) {
+                blackhole.consume(trie.completion(node, i));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<BookSuggestionDTO> suggest() {
+        return trie.suggest(typedPrefixes[next++ & (PREFIXES - 1)], BookSuggestionTrie.MAX_COMPLETIONS);
+    }
+
+    private static String word(Random random, int length) {
+        char[] letters = new char[length];
+        for (int i = 0; i < length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LibraryBorrowProperties.class)
+public class BorrowConfig {
+}
@@ -0,0 +1,36 @@
+package org.example.api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+// Runs before the transaction interceptor so cache hits never open a transaction
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties(LibraryCacheProperties.class)
+public class CacheConfig {
+    public static final String BOOK_DETAILS = "bookDetails";
+    public static final String USER_IDENTITIES = "userIdentities";
+
+    @Bean
+    public CacheManager cacheManager(LibraryCacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(BOOK_DETAILS, buildCache(properties.bookDetails()));
+        cacheManager.registerCustomCache(USER_IDENTITIES, buildCache(properties.userIdentities()));
+        return cacheManager;
+    }
+
+    private static Cache<Object, Object> buildCache(LibraryCacheProperties.CacheSpec spec) {
+        return Caffeine.newBuilder()
+                .maximumSize(spec.maximumSize())
+                .expireAfterWrite(spec.ttl())
+                .recordStats()
+                .build();
+    }
+}
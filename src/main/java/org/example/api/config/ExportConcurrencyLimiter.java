@@ -0,0 +1,56 @@
+package org.example.api.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.exception.ServiceUnavailableException;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Admits at most a fixed number of catalog exports at a time. An export can stream for as long as the
+ * async request timeout, so a request that finds no free permit is answered with 503 at once instead
+ * of waiting for one. The permit is held until the streamed response completes.
+ */
+@Slf4j
+public class ExportConcurrencyLimiter implements AsyncHandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = ExportConcurrencyLimiter.class.getName() + ".permit";
+
+    private final Semaphore permits;
+    private final Duration retryAfter;
+
+    public ExportConcurrencyLimiter(LibraryExportProperties properties) {
+        this.permits = new Semaphore(properties.maxConcurrent());
+        this.retryAfter = properties.retryAfter();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            // Async redispatch once the body is streamed; released in afterCompletion
+            return true;
+        }
+        if (!permits.tryAcquire()) {
+            log.warn("Catalog export rejected, all permits in use - uri: {}", request.getRequestURI());
+            throw new ServiceUnavailableException("Too many catalog exports in progress. Please try again later.",
+                    retryAfter);
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
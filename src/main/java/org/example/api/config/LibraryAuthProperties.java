@@ -0,0 +1,39 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "library.auth")
+public record LibraryAuthProperties(@DefaultValue("10") int bcryptStrength,
+                                    @DefaultValue Hashing hashing,
+                                    @DefaultValue Verified verified,
+                                    @DefaultValue Tokens tokens) {
+    /**
+     * Password checks are CPU-bound, so they run on a few dedicated threads. A login burst queues here
+     * instead of occupying request threads, and is refused once the queue is full.
+     */
+    public record Hashing(@DefaultValue("2") int threads,
+                          @DefaultValue("64") int queueCapacity) {
+    }
+
+    /**
+     * Recent successful verifications, keyed by a keyed digest of the username, password and stored hash,
+     * so repeated logins skip the hash until the entry expires or the password changes.
+     */
+    public record Verified(@DefaultValue("5m") Duration ttl,
+                           @DefaultValue("10000") long maximumSize) {
+    }
+
+    /**
+     * Signing keys for session tokens, by key id. Tokens are signed with {@code activeKey} and verified with
+     * whichever key their id names, so a key is rotated by adding a new one, making it active, and removing
+     * the old one once {@code ttl} has passed. Without keys a random one is generated at startup.
+     */
+    public record Tokens(@DefaultValue("1h") Duration ttl,
+                         String activeKey,
+                         Map<String, String> keys) {
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "library.borrow")
+public record LibraryBorrowProperties(@DefaultValue("pessimistic") Mode mode,
+                                      @DefaultValue Async async,
+                                      @DefaultValue Concurrency concurrency,
+                                      @DefaultValue Retry retry,
+                                      @DefaultValue Lock lock,
+                                      @DefaultValue("true") boolean requireSession) {
+    public enum Mode {
+        /** Reads the copy under SELECT ... FOR UPDATE, checks it and writes it back. */
+        PESSIMISTIC,
+        /** Issues a single UPDATE guarded by the copy's loan state and checks the affected row count. */
+        CONDITIONAL
+    }
+
+    /**
+     * Operations on the same copy always land in the same lane and run one after another,
+     * so they never wait on each other's row lock.
+     */
+    public record Async(@DefaultValue("8") int lanes,
+                        @DefaultValue("250") int laneCapacity,
+                        @DefaultValue("1h") Duration retention,
+                        @DefaultValue("100000") long maxRetained) {
+    }
+
+    /**
+     * Caps the loan requests in flight at once, retries and their backoff included, so a lock storm
+     * on one title cannot take every pooled connection away from the read endpoints.
+     */
+    public record Concurrency(@DefaultValue("8") int maxConcurrent,
+                              @DefaultValue("2s") Duration acquireTimeout) {
+    }
+
+    /**
+     * Retries transient failures with randomized exponential backoff. No attempt is scheduled
+     * past the deadline, which is counted from the first attempt, and a running attempt's
+     * statements time out at it.
+     */
+    public record Retry(@DefaultValue("3") int maxAttempts,
+                        @DefaultValue("1s") Duration initialDelay,
+                        @DefaultValue("4s") Duration maxDelay,
+                        @DefaultValue("2") double multiplier,
+                        @DefaultValue("10s") Duration deadline) {
+    }
+
+    /**
+     * Borrows and returns of one copy queue on an in-process fair lock before opening a transaction,
+     * so only one of them holds a connection while the rest wait in memory.
+     */
+    public record Lock(@DefaultValue("256") int stripes,
+                       @DefaultValue("1s") Duration timeout) {
+    }
+}
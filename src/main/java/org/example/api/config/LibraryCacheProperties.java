@@ -0,0 +1,14 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "library.cache")
+public record LibraryCacheProperties(@DefaultValue CacheSpec bookDetails,
+                                     @DefaultValue CacheSpec userIdentities) {
+    public record CacheSpec(@DefaultValue("10000") long maximumSize,
+                            @DefaultValue("60s") Duration ttl) {
+    }
+}
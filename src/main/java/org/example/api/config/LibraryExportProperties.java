@@ -0,0 +1,16 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * A catalog export holds a pooled connection for as long as the client takes to read it, so only
+ * {@code maxConcurrent} run at once; further exports are answered with 503 and told to come back
+ * after {@code retryAfter}.
+ */
+@ConfigurationProperties(prefix = "library.export")
+public record LibraryExportProperties(@DefaultValue("4") int maxConcurrent,
+                                      @DefaultValue("30s") Duration retryAfter) {
+}
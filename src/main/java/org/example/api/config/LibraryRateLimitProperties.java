@@ -0,0 +1,24 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Token-bucket budgets per client. Each budget allows a burst of {@code capacity} requests and refills
+ * one token every {@code period / capacity}. Buckets idle for {@code idleTimeout} are dropped, and at
+ * most {@code maxClients} are kept per budget. Typeahead is sent once per keystroke, so {@code suggest}
+ * has its own budget instead of spending the catalog's.
+ */
+@ConfigurationProperties(prefix = "library.rate-limit")
+public record LibraryRateLimitProperties(@DefaultValue("true") boolean enabled,
+                                         @DefaultValue("10m") Duration idleTimeout,
+                                         @DefaultValue("1000000") long maxClients,
+                                         @DefaultValue({"60", "1m"}) Budget catalog,
+                                         @DefaultValue({"300", "1m"}) Budget suggest,
+                                         @DefaultValue({"30", "1m"}) Budget loans,
+                                         @DefaultValue({"20", "1m"}) Budget users) {
+    public record Budget(int capacity, Duration period) {
+    }
+}
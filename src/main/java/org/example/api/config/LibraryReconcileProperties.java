@@ -0,0 +1,17 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Periodic check of the {@code book.available_copies} counters against the inventory table.
+ * Books are compared {@code batchSize} at a time; each drifted counter is recounted under its row lock.
+ */
+@ConfigurationProperties(prefix = "library.reconcile")
+public record LibraryReconcileProperties(@DefaultValue("true") boolean enabled,
+                                         @DefaultValue("1m") Duration initialDelay,
+                                         @DefaultValue("10m") Duration interval,
+                                         @DefaultValue("500") int batchSize) {
+}
@@ -0,0 +1,13 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * How often the search index and the typeahead trie check the catalog for added books and rebuild.
+ */
+@ConfigurationProperties(prefix = "library.search")
+public record LibrarySearchProperties(@DefaultValue("5m") Duration refreshInterval) {
+}
@@ -0,0 +1,60 @@
+package org.example.api.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.exception.ServiceUnavailableException;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits at most a fixed number of loan requests at a time. Waiting for a permit happens before any
+ * connection is taken, and a request that cannot get one in time is answered with 503. The permit
+ * is held until the response completes, including the async part of a retried request and the backoff
+ * between its attempts, when it holds no connection; the retry deadline bounds how long that lasts.
+ */
+@Slf4j
+public class LoanConcurrencyLimiter implements AsyncHandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = LoanConcurrencyLimiter.class.getName() + ".permit";
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+
+    public LoanConcurrencyLimiter(LibraryBorrowProperties.Concurrency concurrency) {
+        this.permits = new Semaphore(concurrency.maxConcurrent(), true);
+        this.acquireTimeout = concurrency.acquireTimeout();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            // Async redispatch of a request that already holds its permit; released in afterCompletion
+            return true;
+        }
+        if (!permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            log.warn("Loan request rejected, no permit within {} - uri: {}", acquireTimeout, request.getRequestURI());
+            throw new ServiceUnavailableException("Too many concurrent loan requests. Please try again later.",
+                    RETRY_AFTER);
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(LibraryAuthProperties.class)
+public class PasswordConfig {
+    private static final String BCRYPT = "bcrypt";
+
+    /**
+     * New hashes are "{bcrypt}..." at the configured strength. Unprefixed values are the plaintext
+     * passwords stored before hashing existed; they still match and are reported as needing an upgrade.
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(LibraryAuthProperties properties) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT,
+                Map.of(BCRYPT, new BCryptPasswordEncoder(properties.bcryptStrength())));
+        encoder.setDefaultPasswordEncoderForMatches(new LegacyPlaintextEncoder());
+        return encoder;
+    }
+
+    private static final class LegacyPlaintextEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            throw new UnsupportedOperationException("Plaintext passwords are only matched, never stored");
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String storedPassword) {
+            return MessageDigest.isEqual(rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+                    storedPassword.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.api.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.exception.TooManyRequestsException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.security.Principal;
+import java.time.Duration;
+
+/**
+ * Applies one token-bucket budget per client, keyed by the authenticated user when there is one and by
+ * the client address otherwise. Runs before the handler, so a rejected request never reaches the
+ * service layer and is answered with 429 and {@code Retry-After}.
+ */
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private final String name;
+    private final LibraryRateLimitProperties.Budget budget;
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitInterceptor(String name, LibraryRateLimitProperties.Budget budget,
+                                LibraryRateLimitProperties properties) {
+        this.name = name;
+        this.budget = budget;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(properties.idleTimeout())
+                .maximumSize(properties.maxClients())
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Already admitted on the initial dispatch
+            return true;
+        }
+        long now = System.nanoTime();
+        String client = clientKey(request);
+        long waitNanos = buckets.get(client, key -> new TokenBucket(budget.capacity(), budget.period().toNanos(), now))
+                .tryConsume(now);
+        if (waitNanos > 0) {
+            Duration retryAfter = Duration.ofSeconds(Math.max(1, (waitNanos + 999_999_999) / 1_000_000_000));
+            log.debug("Rate limit exceeded - budget: {}, client: {}, retryAfter: {}", name, client, retryAfter);
+            throw new TooManyRequestsException("Too many requests. Please try again later.", retryAfter);
+        }
+        return true;
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? "user:" + principal.getName() : "ip:" + request.getRemoteAddr();
+    }
+}
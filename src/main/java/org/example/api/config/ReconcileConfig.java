@@ -0,0 +1,30 @@
+package org.example.api.config;
+
+import org.example.api.service.AvailableCopiesReconciler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(LibraryReconcileProperties.class)
+@ConditionalOnProperty(name = "library.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class ReconcileConfig implements SchedulingConfigurer {
+    private final AvailableCopiesReconciler reconciler;
+    private final LibraryReconcileProperties properties;
+
+    public ReconcileConfig(AvailableCopiesReconciler reconciler, LibraryReconcileProperties properties) {
+        this.reconciler = reconciler;
+        this.properties = properties;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(reconciler::reconcile,
+                properties.interval(), properties.initialDelay()));
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.api.config;
+
+import org.example.api.service.BookSearchService;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(LibrarySearchProperties.class)
+public class SearchConfig implements SchedulingConfigurer {
+    private final BookSearchService bookSearchService;
+    private final LibrarySearchProperties properties;
+
+    public SearchConfig(BookSearchService bookSearchService, LibrarySearchProperties properties) {
+        this.bookSearchService = bookSearchService;
+        this.properties = properties;
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(new FixedDelayTask(bookSearchService::refresh,
+                properties.refreshInterval(), properties.refreshInterval()));
+    }
+}
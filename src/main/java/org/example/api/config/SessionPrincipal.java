@@ -0,0 +1,20 @@
+package org.example.api.config;
+
+import org.example.api.repository.UserIdentity;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * The caller of a request that carried a valid session token.
+ */
+public record SessionPrincipal(UserIdentity identity) implements Principal {
+    public UUID userId() {
+        return identity.id();
+    }
+
+    @Override
+    public String getName() {
+        return identity.id().toString();
+    }
+}
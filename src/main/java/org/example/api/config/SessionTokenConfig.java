@@ -0,0 +1,18 @@
+package org.example.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.api.service.SessionTokens;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SessionTokenConfig {
+
+    @Bean
+    public SessionTokenFilter sessionTokenFilter(SessionTokens sessionTokens, CacheManager cacheManager,
+                                                 ObjectMapper objectMapper) {
+        return new SessionTokenFilter(sessionTokens, cacheManager.getCache(CacheConfig.USER_IDENTITIES),
+                objectMapper);
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.dto.ErrorResponse;
+import org.example.api.repository.UserIdentity;
+import org.example.api.service.SessionTokens;
+import org.springframework.cache.Cache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Turns a {@code Authorization: Bearer} session token into the request's {@link SessionPrincipal}.
+ * The identity in the token is also put in the user identity cache unless already there, so loan
+ * operations in the request find the borrower there instead of loading the user row. The cache is
+ * written directly, without a transaction or a connection. Requests without a token, and logins,
+ * pass through unchanged; otherwise an invalid or expired token is answered with 401.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class SessionTokenFilter extends OncePerRequestFilter {
+    private static final String BEARER = "Bearer ";
+    private static final String LOGIN_PATH = "/user/login";
+
+    private final SessionTokens sessionTokens;
+    private final Cache userIdentities;
+    private final ObjectMapper objectMapper;
+
+    // A client whose token has expired must still be able to log in again
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return LOGIN_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Optional<UserIdentity> identity = sessionTokens.verify(authorization.substring(BEARER.length()).trim());
+        if (identity.isEmpty()) {
+            log.debug("Rejected session token - {} {}", request.getMethod(), request.getRequestURI());
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    new ErrorResponse(List.of("The session token is invalid or expired")));
+            return;
+        }
+        userIdentities.putIfAbsent(identity.get().id(), identity.get());
+        SessionPrincipal principal = new SessionPrincipal(identity.get());
+        chain.doFilter(new HttpServletRequestWrapper(request) {
+            @Override
+            public Principal getUserPrincipal() {
+                return principal;
+            }
+        }, response);
+    }
+}
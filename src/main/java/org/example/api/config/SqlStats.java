@@ -0,0 +1,87 @@
+package org.example.api.config;
+
+import java.util.function.Supplier;
+
+/**
+ * JDBC work done on the current thread while a capture is open: statements executed (each batch entry
+ * counts), rows read from result sets and time spent executing. Filled in by the data source proxy
+ * that {@link SqlStatsConfig} installs, so nothing is counted unless {@code library.sql-stats.enabled} is set.
+ */
+public final class SqlStats {
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String ROWS_HEADER = "X-Sql-Rows";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+    private long timeMillis;
+
+    public int statements() {
+        return statements;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public long timeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * Runs {@code action} with a fresh capture and returns its result with the SQL it issued.
+     * Captures nest: the enclosing one, if any, also counts this work.
+     */
+    public static <T> Captured<T> capture(Supplier<T> action) {
+        try (Scope scope = open()) {
+            return new Captured<>(action.get(), scope.stats());
+        }
+    }
+
+    static Scope open() {
+        Scope scope = new Scope(CURRENT.get(), new SqlStats());
+        CURRENT.set(scope.stats());
+        return scope;
+    }
+
+    static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    void recordExecution(int statementCount, long elapsedMillis) {
+        statements += statementCount;
+        timeMillis += elapsedMillis;
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    private void add(SqlStats other) {
+        statements += other.statements;
+        rows += other.rows;
+        timeMillis += other.timeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + rows + " rows, " + timeMillis + " ms";
+    }
+
+    public record Captured<T>(T result, SqlStats stats) {
+    }
+
+    record Scope(SqlStats outer, SqlStats stats) implements AutoCloseable {
+        @Override
+        public void close() {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                outer.add(stats);
+                CURRENT.set(outer);
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.api.config;
+
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+
+/**
+ * Per-request SQL statistics for non-production profiles, switched on with {@code library.sql-stats.enabled}.
+ * The data source is wrapped in a proxy that feeds the current {@link SqlStats} capture. Work done off
+ * the request thread, such as a delayed loan retry, is not attributed to the request.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.sql-stats.enabled", havingValue = "true")
+public class SqlStatsConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlStatsDataSourceProxy() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(beanName, dataSource)
+                        .afterQuery((execution, queries) -> {
+                            SqlStats stats = SqlStats.current();
+                            if (stats != null) {
+                                int count = execution.isBatch() ? execution.getBatchSize() : queries.size();
+                                stats.recordExecution(count, execution.getElapsedTime());
+                            }
+                        })
+                        .proxyResultSet()
+                        .afterMethod(SqlStatsConfig::countRow)
+                        .build();
+            }
+        };
+    }
+
+    @Bean
+    public SqlStatsFilter sqlStatsFilter() {
+        return new SqlStatsFilter();
+    }
+
+    private static void countRow(MethodExecutionContext context) {
+        if (context.getTarget() instanceof ResultSet && "next".equals(context.getMethod().getName())
+                && Boolean.TRUE.equals(context.getResult())) {
+            SqlStats stats = SqlStats.current();
+            if (stats != null) {
+                stats.recordRow();
+            }
+        }
+    }
+}
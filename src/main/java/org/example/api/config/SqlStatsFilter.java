@@ -0,0 +1,33 @@
+package org.example.api.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens a {@link SqlStats} capture around each request and reports the totals in response headers
+ * and a debug log line. Responses with a body are committed before the chain returns, so their
+ * headers are added by {@link SqlStatsHeaderAdvice} instead.
+ */
+@Slf4j
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (SqlStats.Scope scope = SqlStats.open()) {
+            chain.doFilter(request, response);
+            if (!response.isCommitted()) {
+                response.setHeader(SqlStats.STATEMENTS_HEADER, Integer.toString(scope.stats().statements()));
+                response.setHeader(SqlStats.ROWS_HEADER, Long.toString(scope.stats().rows()));
+                response.setHeader(SqlStats.TIME_HEADER, Long.toString(scope.stats().timeMillis()));
+            }
+            log.debug("SQL for {} {}: {}", request.getMethod(), request.getRequestURI(), scope.stats());
+        }
+    }
+}
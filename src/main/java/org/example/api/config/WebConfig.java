@@ -0,0 +1,55 @@
+package org.example.api.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+// Borrow properties are registered by BorrowConfig, imported so web slices get them too
+@Import(BorrowConfig.class)
+@EnableConfigurationProperties({LibraryRateLimitProperties.class, LibraryExportProperties.class})
+public class WebConfig implements WebMvcConfigurer {
+    private static final String[] LOAN_PATHS = {"/books/borrow", "/books/borrow-any", "/books/return",
+            "/books/borrow/batch", "/books/return/batch"};
+    private static final String SUGGEST_PATH = "/books/suggest";
+    private static final String EXPORT_PATH = "/books/export";
+
+    private final LoanConcurrencyLimiter loanConcurrencyLimiter;
+    private final ExportConcurrencyLimiter exportConcurrencyLimiter;
+    private final LibraryRateLimitProperties rateLimitProperties;
+
+    public WebConfig(LibraryBorrowProperties borrowProperties, LibraryRateLimitProperties rateLimitProperties,
+                     LibraryExportProperties exportProperties) {
+        this.loanConcurrencyLimiter = new LoanConcurrencyLimiter(borrowProperties.concurrency());
+        this.exportConcurrencyLimiter = new ExportConcurrencyLimiter(exportProperties);
+        this.rateLimitProperties = rateLimitProperties;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Rate limits go first so a rejected request never waits for a loan permit
+        if (rateLimitProperties.enabled()) {
+            registry.addInterceptor(rateLimiter("catalog", rateLimitProperties.catalog()))
+                    .addPathPatterns("/books", "/books/**")
+                    .excludePathPatterns(LOAN_PATHS)
+                    .excludePathPatterns(SUGGEST_PATH)
+                    .excludePathPatterns("/books/operations/**");
+            registry.addInterceptor(rateLimiter("suggest", rateLimitProperties.suggest()))
+                    .addPathPatterns(SUGGEST_PATH);
+            registry.addInterceptor(rateLimiter("loans", rateLimitProperties.loans()))
+                    .addPathPatterns(LOAN_PATHS);
+            registry.addInterceptor(rateLimiter("users", rateLimitProperties.users()))
+                    .addPathPatterns("/user/**");
+        }
+        registry.addInterceptor(loanConcurrencyLimiter)
+                .addPathPatterns(LOAN_PATHS);
+        registry.addInterceptor(exportConcurrencyLimiter)
+                .addPathPatterns(EXPORT_PATH);
+    }
+
+    private RateLimitInterceptor rateLimiter(String name, LibraryRateLimitProperties.Budget budget) {
+        return new RateLimitInterceptor(name, budget, rateLimitProperties);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.api.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.SessionPrincipal;
+import org.example.api.dto.CacheStatsDTO;
+import org.example.api.dto.LockStripeStatsDTO;
+import org.example.api.exception.ForbiddenException;
+import org.example.api.exception.UnauthorizedException;
+import org.example.api.service.CacheStatsService;
+import org.example.api.service.InventoryLocks;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminController {
+    private static final String ADMIN_ROLE = "ADMIN";
+
+    private final CacheStatsService cacheStatsService;
+    private final InventoryLocks inventoryLocks;
+
+    @GetMapping("/caches")
+    public List<CacheStatsDTO> getCacheStats(Principal principal) {
+        log.info("Retrieving cache statistics");
+        checkAdmin(principal);
+        return cacheStatsService.getCacheStats();
+    }
+
+    @GetMapping("/locks")
+    public List<LockStripeStatsDTO> getLockStats(Principal principal) {
+        log.info("Retrieving inventory lock statistics");
+        checkAdmin(principal);
+        return inventoryLocks.getStats();
+    }
+
+    /**
+     * Cache and lock statistics describe every caller's traffic, so they need the session token of an admin.
+     */
+    private void checkAdmin(Principal principal) {
+        if (!(principal instanceof SessionPrincipal session)) {
+            throw new UnauthorizedException("A session token is required to read admin statistics");
+        }
+        if (!ADMIN_ROLE.equals(session.identity().role())) {
+            log.warn("Admin statistics requested by a non-admin - caller: {}", session.userId());
+            throw new ForbiddenException("Admin statistics are only available to admins");
+        }
+    }
+}
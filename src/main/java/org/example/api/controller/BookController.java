@@ -1,51 +1,286 @@
 package org.example.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.LibraryBorrowProperties;
+import org.example.api.config.SessionPrincipal;
+import org.example.api.dto.BatchLoanRequest;
+import org.example.api.dto.BookAvailabilityDTO;
 import org.example.api.dto.BookDetailsDTO;
+import org.example.api.dto.BookSearchResultDTO;
+import org.example.api.dto.BookSuggestionDTO;
+import org.example.api.dto.BorrowAnyRequest;
 import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.InventoryDTO;
+import org.example.api.dto.LoanItemResultDTO;
+import org.example.api.dto.LoanOperationDTO;
+import org.example.api.dto.PageDTO;
 import org.example.api.dto.ReturnRequest;
+import org.example.api.exception.ForbiddenException;
+import org.example.api.exception.UnauthorizedException;
+import org.example.api.service.AsyncLoanService;
+import org.example.api.service.BookSearchService;
 import org.example.api.service.BookService;
+import org.example.api.service.BookSuggestionTrie;
+import org.example.api.service.CatalogVersions;
+import org.example.api.service.LoanService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+
+import java.security.Principal;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/books")
 @RequiredArgsConstructor
 @Slf4j
 public class BookController {
-    // TODO: Implement rate limiting
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int EXPORT_FLUSH_INTERVAL = 100;
+    private static final int EXPORT_BUFFER_SIZE = 8192;
+    private static final String PREFER = "Prefer";
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+    private static final String RESPOND_ASYNC = "respond-async";
+
     private final BookService bookService;
+    private final BookSearchService bookSearchService;
+    private final LoanService loanService;
+    private final AsyncLoanService asyncLoanService;
+    private final ObjectMapper objectMapper;
+    private final CatalogVersions catalogVersions;
+    private final LibraryBorrowProperties borrowProperties;
 
     @GetMapping
-    public List<BookDetailsDTO> getAllBooks() {
-        log.info("Retrieving all books");
-        return bookService.getAllBooks();
+    public PageDTO<BookDetailsDTO> getBooks(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "" + BookService.DEFAULT_PAGE_SIZE) int limit,
+                                            WebRequest webRequest) {
+        // The tag is read before the page so a concurrent change can only make it older, never newer
+        if (webRequest.checkNotModified(catalogVersions.catalogETag())) {
+            return null;
+        }
+        log.info("Retrieving books page - cursor: {}, limit: {}", cursor, limit);
+        return bookService.getBooks(cursor, limit);
+    }
+
+    @GetMapping("/search")
+    public PageDTO<BookSearchResultDTO> searchBooks(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + BookSearchService.DEFAULT_PAGE_SIZE) int limit) {
+        log.info("Searching books - q: {}, cursor: {}, limit: {}", q, cursor, limit);
+        return bookSearchService.search(q, cursor, limit);
+    }
+
+    @GetMapping("/suggest")
+    public List<BookSuggestionDTO> suggestBooks(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "" + BookSuggestionTrie.MAX_COMPLETIONS) int limit) {
+        log.debug("Suggesting books - q: {}, limit: {}", q, limit);
+        return bookSearchService.suggest(q, limit);
+    }
+
+    @GetMapping("/availability")
+    public PageDTO<BookAvailabilityDTO> getAvailability(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + BookService.DEFAULT_AVAILABILITY_PAGE_SIZE) int limit) {
+        log.info("Retrieving availability page - cursor: {}, limit: {}", cursor, limit);
+        return bookService.getAvailability(cursor, limit);
+    }
+
+    @GetMapping("/{id}/availability")
+    public BookAvailabilityDTO getBookAvailability(@PathVariable UUID id) {
+        log.info("Retrieving availability of book with id: {}", id);
+        return bookService.getBookAvailability(id);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        log.info("Exporting catalog - gzip: {}", gzip);
+
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, EXPORT_BUFFER_SIZE, true) : out;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(target)) {
+                generator.setRootValueSeparator(null);
+                ObjectWriter writer = objectMapper.writerFor(BookDetailsDTO.class)
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                AtomicLong written = new AtomicLong();
+                bookService.exportCatalog(book -> {
+                    try {
+                        writer.writeValue(generator, book);
+                        generator.writeRaw('\n');
+                        if (written.incrementAndGet() % EXPORT_FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
     }
 
     @GetMapping("/{id}")
-    public BookDetailsDTO getBookById(@PathVariable UUID id) {
+    public BookDetailsDTO getBookById(@PathVariable UUID id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersions.bookETag(id))) {
+            return null;
+        }
         log.info("Retrieving book with id: {}", id);
         return bookService.getBookById(id);
     }
 
     @PutMapping("/borrow")
-    public ResponseEntity<Void> borrowBook(@Valid @RequestBody BorrowRequest request) {
+    public CompletableFuture<ResponseEntity<LoanOperationDTO>> borrowBook(
+            @Valid @RequestBody BorrowRequest request,
+            @RequestHeader(value = PREFER, required = false) String prefer,
+            Principal principal) {
         log.info("Processing borrow request - userId: {}, inventoryId: {}",
                 request.userId(), request.inventoryId());
-        bookService.borrowBook(request);
-        return ResponseEntity.accepted().build();
+        checkCaller(request.userId(), principal);
+        if (respondAsync(prefer)) {
+            return CompletableFuture.completedFuture(acceptedOperation(asyncLoanService.submitBorrow(request)));
+        }
+        return loanService.borrowBook(request).thenApply(done -> ResponseEntity.accepted().build());
+    }
+
+    @PutMapping("/borrow-any")
+    public CompletableFuture<ResponseEntity<InventoryDTO>> borrowAnyCopy(@Valid @RequestBody BorrowAnyRequest request,
+                                                                         Principal principal) {
+        log.info("Processing borrow-any request - userId: {}, bookId: {}", request.userId(), request.bookId());
+        checkCaller(request.userId(), principal);
+        return loanService.borrowAnyCopy(request).thenApply(copy -> ResponseEntity.accepted().body(copy));
     }
 
     @PutMapping("/return")
-    public ResponseEntity<Void> returnBook(@Valid @RequestBody ReturnRequest request) {
+    public CompletableFuture<ResponseEntity<LoanOperationDTO>> returnBook(
+            @Valid @RequestBody ReturnRequest request,
+            @RequestHeader(value = PREFER, required = false) String prefer,
+            Principal principal) {
         log.info("Processing return request - userId: {}, inventoryId: {}",
                 request.userId(), request.inventoryId());
-        bookService.returnBook(request);
-        return ResponseEntity.accepted().build();
+        checkCaller(request.userId(), principal);
+        if (respondAsync(prefer)) {
+            return CompletableFuture.completedFuture(acceptedOperation(asyncLoanService.submitReturn(request)));
+        }
+        return loanService.returnBook(request).thenApply(done -> ResponseEntity.accepted().build());
+    }
+
+    @GetMapping("/operations/{id}")
+    public LoanOperationDTO getOperation(@PathVariable UUID id, Principal principal) {
+        log.info("Retrieving loan operation with id: {}", id);
+        LoanOperationDTO operation = asyncLoanService.getOperation(id);
+        checkCaller(operation.userId(), principal);
+        return operation;
+    }
+
+    @PutMapping("/borrow/batch")
+    public CompletableFuture<List<LoanItemResultDTO>> borrowBooks(@Valid @RequestBody BatchLoanRequest request,
+                                                              Principal principal) {
+        log.info("Processing batch borrow request - userId: {}, copies: {}",
+                request.userId(), request.inventoryIds().size());
+        checkCaller(request.userId(), principal);
+        return loanService.borrowBooks(request);
+    }
+
+    @PutMapping("/return/batch")
+    public CompletableFuture<List<LoanItemResultDTO>> returnBooks(@Valid @RequestBody BatchLoanRequest request,
+                                                              Principal principal) {
+        log.info("Processing batch return request - userId: {}, copies: {}",
+                request.userId(), request.inventoryIds().size());
+        checkCaller(request.userId(), principal);
+        return loanService.returnBooks(request);
+    }
+
+    /**
+     * Borrowing and returning need a session token, and only act for the user it was issued to; the status
+     * of a queued loan is only shown to that user too. Without {@code library.borrow.require-session}
+     * a request without a token acts for the user in its body.
+     */
+    private void checkCaller(UUID userId, Principal principal) {
+        if (!(principal instanceof SessionPrincipal session)) {
+            if (borrowProperties.requireSession()) {
+                throw new UnauthorizedException("A session token is required to borrow or return books");
+            }
+            return;
+        }
+        if (!session.userId().equals(userId)) {
+            log.warn("Loan request for another user - caller: {}, userId: {}", session.userId(), userId);
+            throw new ForbiddenException("The session token belongs to another user");
+        }
+    }
+
+    /**
+     * Whether the Accept-Encoding header admits gzip: an explicit {@code gzip} coding decides, otherwise
+     * a {@code *} wildcard does, and either is refused by {@code q=0}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            boolean accepted = qualityOf(parts) > 0;
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    private static double qualityOf(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static boolean respondAsync(String prefer) {
+        return prefer != null && prefer.contains(RESPOND_ASYNC);
+    }
+
+    private static ResponseEntity<LoanOperationDTO> acceptedOperation(LoanOperationDTO operation) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/books/operations/" + operation.id()))
+                .header(PREFERENCE_APPLIED, RESPOND_ASYNC)
+                .body(operation);
     }
 }
@@ -0,0 +1,14 @@
+package org.example.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public record BatchLoanRequest(@NotNull(message = "User ID is required") UUID userId,
+                               @NotEmpty(message = "Inventory IDs are required")
+                               @Size(max = 100, message = "At most 100 inventory IDs are allowed")
+                               List<@NotNull(message = "Inventory ID is required") UUID> inventoryIds) {
+}
@@ -0,0 +1,7 @@
+package org.example.api.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record BookAvailabilityDTO(UUID bookId, long totalCopies, long availableCopies, Instant earliestLoanDate) {
+}
@@ -0,0 +1,7 @@
+package org.example.api.dto;
+
+import java.util.UUID;
+
+public record BookSearchResultDTO(UUID id, String title, String author, String image,
+                                  long totalCopies, long availableCopies) {
+}
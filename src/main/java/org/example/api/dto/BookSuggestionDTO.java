@@ -0,0 +1,10 @@
+package org.example.api.dto;
+
+import java.util.UUID;
+
+public record BookSuggestionDTO(Type type, String text, UUID bookId) {
+    public enum Type {
+        TITLE,
+        AUTHOR
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.api.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.UUID;
+
+public record BorrowAnyRequest(@NotNull(message = "User ID is required") UUID userId,
+                               @NotNull(message = "Book ID is required") UUID bookId) {
+}
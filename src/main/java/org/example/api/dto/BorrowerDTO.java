@@ -0,0 +1,6 @@
+package org.example.api.dto;
+
+import java.util.UUID;
+
+public record BorrowerDTO(UUID id, String username, String role) {
+}
@@ -0,0 +1,5 @@
+package org.example.api.dto;
+
+public record CacheStatsDTO(String name, long size, long hitCount, long missCount, double hitRate,
+                            long evictionCount) {
+}
@@ -3,5 +3,5 @@ package org.example.api.dto;
 import java.time.Instant;
 import java.util.UUID;
 
-public record InventoryUserDTO(UUID id, Instant loanDate, UserDTO user) {
+public record InventoryUserDTO(UUID id, Instant loanDate, BorrowerDTO user) {
 }
@@ -0,0 +1,11 @@
+package org.example.api.dto;
+
+import java.util.UUID;
+
+public record LoanItemResultDTO(UUID inventoryId, Status status, String error) {
+    public enum Status {
+        OK,
+        NOT_FOUND,
+        CONFLICT
+    }
+}
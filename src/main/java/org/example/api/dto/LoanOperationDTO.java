@@ -0,0 +1,27 @@
+package org.example.api.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record LoanOperationDTO(UUID id,
+                               Type type,
+                               UUID userId,
+                               UUID inventoryId,
+                               Status status,
+                               String error,
+                               Instant submittedAt,
+                               Instant completedAt) {
+    public enum Type {
+        BORROW,
+        RETURN
+    }
+
+    public enum Status {
+        PENDING,
+        RUNNING,
+        SUCCEEDED,
+        NOT_FOUND,
+        CONFLICT,
+        FAILED
+    }
+}
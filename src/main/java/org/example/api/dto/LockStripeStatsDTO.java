@@ -0,0 +1,5 @@
+package org.example.api.dto;
+
+public record LockStripeStatsDTO(int stripe, boolean locked, int queueLength, long acquisitions, long timeouts,
+                                 double averageWaitMillis, double maxWaitMillis) {
+}
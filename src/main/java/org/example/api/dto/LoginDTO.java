@@ -0,0 +1,11 @@
+package org.example.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.time.Instant;
+
+/**
+ * The logged-in user, with a session token to send as {@code Authorization: Bearer <token>}.
+ */
+public record LoginDTO(@JsonUnwrapped UserDTO user, String token, Instant expiresAt) {
+}
@@ -0,0 +1,6 @@
+package org.example.api.dto;
+
+import java.util.List;
+
+public record PageDTO<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,6 @@
+package org.example.api.event;
+
+import java.util.UUID;
+
+public record AvailableCopiesChangedEvent(UUID bookId, int delta) {
+}
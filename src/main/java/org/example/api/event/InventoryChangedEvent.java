@@ -0,0 +1,10 @@
+package org.example.api.event;
+
+import java.util.UUID;
+
+/**
+ * A change to the copies of a book: a loan of the given copy, or, without a copy, copies added or
+ * removed behind the application's back.
+ */
+public record InventoryChangedEvent(UUID bookId, UUID inventoryId) {
+}
@@ -0,0 +1,7 @@
+package org.example.api.exception;
+
+public class ForbiddenException extends RuntimeException {
+    public ForbiddenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.api.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        // Thrown for every rejected request, so skip the stack trace
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -4,8 +4,12 @@ import org.example.api.dto.*;
 import org.example.api.entity.User;
 import org.example.api.entity.Book;
 import org.example.api.entity.Inventory;
+import org.example.api.repository.BookInventoryRow;
+import org.example.api.repository.UserIdentity;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class LibraryMapper {
 
@@ -44,6 +48,29 @@ public class LibraryMapper {
         );
     }
 
+    public UserDTO toUserDTO(UserIdentity identity, List<Inventory> loans) {
+        if (identity == null) {
+            return null;
+        }
+
+        return new UserDTO(
+                identity.id(),
+                identity.username(),
+                identity.role(),
+                loans.stream()
+                        .map(this::toInventoryDTO)
+                        .toList()
+        );
+    }
+
+    public BorrowerDTO toBorrowerDTO(User user) {
+        if (user == null) {
+            return null;
+        }
+
+        return new BorrowerDTO(user.getId(), user.getUsername(), user.getRole());
+    }
+
     public InventoryUserDTO toInventoryUserDTO(Inventory inventory) {
         if (inventory == null) {
             return null;
@@ -52,7 +79,7 @@ public class LibraryMapper {
         return new InventoryUserDTO(
                 inventory.getId(),
                 inventory.getLoanDate(),
-                toUserDTO(inventory.getUser())
+                toBorrowerDTO(inventory.getUser())
         );
     }
 
@@ -71,4 +98,26 @@ public class LibraryMapper {
                         .toList()
         );
     }
+
+    public BookDetailsDTO toBookDetailsDTOFromRows(List<BookInventoryRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return null;
+        }
+
+        BookInventoryRow first = rows.getFirst();
+        return new BookDetailsDTO(
+                first.bookId(),
+                first.title(),
+                first.author(),
+                first.image(),
+                rows.stream()
+                        .filter(row -> row.inventoryId() != null)
+                        .map(row -> new InventoryUserDTO(
+                                row.inventoryId(),
+                                row.loanDate(),
+                                row.userId() == null ? null : new BorrowerDTO(row.userId(), row.username(), row.role())
+                        ))
+                        .toList()
+        );
+    }
 }
@@ -0,0 +1,19 @@
+package org.example.api.repository;
+
+import java.util.UUID;
+
+/**
+ * A book's recorded {@code available_copies} next to the free copies counted in the inventory table.
+ * The id is read as text because native UUID columns do not map to {@link UUID} on every database.
+ */
+public interface AvailableCopiesRow {
+    String getId();
+
+    int getRecorded();
+
+    long getActual();
+
+    default UUID bookId() {
+        return UUID.fromString(getId());
+    }
+}
@@ -0,0 +1,25 @@
+package org.example.api.repository;
+
+import org.example.api.dto.BookAvailabilityDTO;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A book's copies counted in the inventory table next to its {@code available_copies} counter.
+ * The id is read as text because native UUID columns do not map to {@link UUID} on every database.
+ */
+public interface BookAvailabilityRow {
+    String getId();
+
+    long getTotalCopies();
+
+    int getAvailableCopies();
+
+    Instant getEarliestLoanDate();
+
+    default BookAvailabilityDTO toDTO() {
+        return new BookAvailabilityDTO(UUID.fromString(getId()), getTotalCopies(), getAvailableCopies(),
+                getEarliestLoanDate());
+    }
+}
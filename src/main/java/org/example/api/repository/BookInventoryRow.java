@@ -0,0 +1,9 @@
+package org.example.api.repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public record BookInventoryRow(UUID bookId, String title, String author, String image,
+                               UUID inventoryId, Instant loanDate,
+                               UUID userId, String username, String role) {
+}
@@ -1,9 +1,112 @@
 package org.example.api.repository;
 
+import jakarta.persistence.QueryHint;
+import org.example.api.dto.BookAvailabilityDTO;
 import org.example.api.entity.Book;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<Book, UUID> {
+    /**
+     * Query space of the unmapped {@code book.available_copies} column. Declaring it keeps Hibernate from
+     * treating the native counter updates as touching every table and clearing the second-level cache.
+     */
+    String AVAILABLE_COPIES_SPACE = "book_available_copies";
+
+    // Free copies are read from the counter; the total and the earliest loan still come from the copies.
+    // Joined from book so a book without copies still gets a row, with zero copies
+    String AVAILABILITY_SELECT = """
+            SELECT CAST(b.id AS varchar(36)) AS id, COUNT(i.id) AS totalCopies,
+                b.available_copies AS availableCopies, MIN(i.loan_date) AS earliestLoanDate
+            FROM book b LEFT JOIN inventory i ON i.book_id = b.id
+            """;
+    String AVAILABILITY_GROUP_BY = "GROUP BY b.id, b.available_copies ";
+
+    @Query("SELECT b.id FROM Book b ORDER BY b.id")
+    List<UUID> findPageIds(Limit limit);
+
+    @Query("SELECT b.id FROM Book b WHERE b.id > :after ORDER BY b.id")
+    List<UUID> findPageIdsAfter(@Param("after") UUID after, Limit limit);
+
+    @EntityGraph(attributePaths = {"inventories", "inventories.user"})
+    List<Book> findWithInventoriesByIdInOrderByIdAsc(Collection<UUID> ids);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT new org.example.api.repository.BookInventoryRow(
+                b.id, b.title, b.author, b.image, i.id, i.loanDate, u.id, u.username, u.role)
+            FROM Book b LEFT JOIN b.inventories i LEFT JOIN i.user u
+            ORDER BY b.id, i.id""")
+    Stream<BookInventoryRow> streamCatalog();
+
+    @Query(value = AVAILABILITY_SELECT + AVAILABILITY_GROUP_BY + "ORDER BY b.id", nativeQuery = true)
+    List<BookAvailabilityRow> findAvailability(Limit limit);
+
+    @Query(value = AVAILABILITY_SELECT + "WHERE b.id > :after " + AVAILABILITY_GROUP_BY + "ORDER BY b.id",
+            nativeQuery = true)
+    List<BookAvailabilityRow> findAvailabilityAfter(@Param("after") UUID after, Limit limit);
+
+    @Query(value = AVAILABILITY_SELECT + "WHERE b.id = :bookId " + AVAILABILITY_GROUP_BY, nativeQuery = true)
+    Optional<BookAvailabilityRow> findAvailabilityByBookId(@Param("bookId") UUID bookId);
+
+    @Query(value = AVAILABILITY_SELECT + "WHERE b.id IN :bookIds " + AVAILABILITY_GROUP_BY, nativeQuery = true)
+    List<BookAvailabilityRow> findAvailabilityByBookIdIn(@Param("bookIds") Collection<UUID> bookIds);
+
+    default List<BookAvailabilityDTO> summarizeAvailability(Limit limit) {
+        return findAvailability(limit).stream().map(BookAvailabilityRow::toDTO).toList();
+    }
+
+    default List<BookAvailabilityDTO> summarizeAvailabilityAfter(UUID after, Limit limit) {
+        return findAvailabilityAfter(after, limit).stream().map(BookAvailabilityRow::toDTO).toList();
+    }
+
+    default Optional<BookAvailabilityDTO> summarizeAvailabilityByBookId(UUID bookId) {
+        return findAvailabilityByBookId(bookId).map(BookAvailabilityRow::toDTO);
+    }
+
+    default List<BookAvailabilityDTO> summarizeAvailabilityByBookIdIn(Collection<UUID> bookIds) {
+        return findAvailabilityByBookIdIn(bookIds).stream().map(BookAvailabilityRow::toDTO).toList();
+    }
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = AVAILABLE_COPIES_SPACE))
+    @Query(value = "UPDATE book SET available_copies = available_copies + :delta WHERE id = :id", nativeQuery = true)
+    int adjustAvailableCopies(@Param("id") UUID id, @Param("delta") int delta);
+
+    @Query(value = """
+            SELECT CAST(b.id AS varchar(36)) AS id, b.available_copies AS recorded,
+                (SELECT COUNT(*) FROM inventory i WHERE i.book_id = b.id AND i.user_id IS NULL) AS actual
+            FROM book b WHERE b.id > :after ORDER BY b.id LIMIT :limit""", nativeQuery = true)
+    List<AvailableCopiesRow> findAvailableCopiesAfter(@Param("after") UUID after, @Param("limit") int limit);
+
+    // Taken before recounting so a concurrent borrow or return either commits first or waits for the recount
+    @Query(value = "SELECT available_copies FROM book WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockForRecount(@Param("id") UUID id);
+
+    @Query(value = "SELECT available_copies FROM book WHERE id = :id", nativeQuery = true)
+    Optional<Integer> findAvailableCopies(@Param("id") UUID id);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = AVAILABLE_COPIES_SPACE))
+    @Query(value = """
+            UPDATE book SET available_copies =
+                (SELECT COUNT(*) FROM inventory i WHERE i.book_id = book.id AND i.user_id IS NULL)
+            WHERE id = :id AND available_copies <>
+                (SELECT COUNT(*) FROM inventory i WHERE i.book_id = book.id AND i.user_id IS NULL)""", nativeQuery = true)
+    int recountAvailableCopies(@Param("id") UUID id);
 }
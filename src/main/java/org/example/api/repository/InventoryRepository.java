@@ -1,17 +1,64 @@
 package org.example.api.repository;
 
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.example.api.entity.Inventory;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface InventoryRepository extends JpaRepository<Inventory, UUID> {
+    /**
+     * Query space of the conditional loan updates. Declaring it keeps Hibernate from evicting the whole
+     * {@code inventory} and {@code book-inventories} regions on every update; the changed copy is evicted
+     * by {@link org.example.api.service.BookCacheInvalidator} once the loan commits.
+     */
+    String LOANS_SPACE = "inventory_loans";
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT i FROM Inventory i WHERE i.id = :id")
     Optional<Inventory> findByIdWithPessimisticLock(@Param("id") UUID id);
+
+    // Rows are locked in id order whatever the request order, so overlapping batches cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.id IN :ids ORDER BY i.id")
+    List<Inventory> findAllByIdWithPessimisticLock(@Param("ids") Collection<UUID> ids);
+
+    // Rows locked by concurrent borrowers are skipped instead of waited on, so they spread across copies.
+    // A lock timeout of -2 is Hibernate's SKIP LOCKED; the LockOptions constant for it is deprecated.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT i FROM Inventory i WHERE i.book.id = :bookId AND i.user IS NULL ORDER BY i.id")
+    List<Inventory> findAvailableSkipLocked(@Param("bookId") UUID bookId, Limit limit);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = LOANS_SPACE))
+    @Query(value = "UPDATE inventory SET user_id = :userId, loan_date = :loanDate WHERE id = :id AND user_id IS NULL",
+            nativeQuery = true)
+    int borrowIfAvailable(@Param("id") UUID id, @Param("userId") UUID userId, @Param("loanDate") Instant loanDate);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = LOANS_SPACE))
+    @Query(value = "UPDATE inventory SET user_id = NULL, loan_date = NULL WHERE id = :id AND user_id = :userId",
+            nativeQuery = true)
+    int returnIfBorrowedBy(@Param("id") UUID id, @Param("userId") UUID userId);
+
+    @Query("SELECT i.book.id FROM Inventory i WHERE i.id = :id")
+    Optional<UUID> findBookIdById(@Param("id") UUID id);
+
+    @EntityGraph(attributePaths = "book")
+    List<Inventory> findByUserId(UUID userId);
 }
@@ -0,0 +1,6 @@
+package org.example.api.repository;
+
+import java.util.UUID;
+
+public record UserIdentity(UUID id, String username, String role) {
+}
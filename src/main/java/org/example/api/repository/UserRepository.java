@@ -2,10 +2,28 @@ package org.example.api.repository;
 
 import org.example.api.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT new org.example.api.repository.UserIdentity(u.id, u.username, u.role) FROM User u WHERE u.id = :id")
+    Optional<UserIdentity> findIdentityById(@Param("id") UUID id);
+
+    /**
+     * Replaces the password hash only if it is still the one that was verified, so an upgrade never
+     * overwrites a concurrent password change. Runs in its own write transaction, never in a caller's
+     * read-only one.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePassword(@Param("id") UUID id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
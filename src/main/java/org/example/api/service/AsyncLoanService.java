@@ -0,0 +1,140 @@
+package org.example.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.LibraryBorrowProperties;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.LoanOperationDTO;
+import org.example.api.dto.ReturnRequest;
+import org.example.api.exception.ConflictException;
+import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs borrow/return operations off the request thread. Each copy is hashed to one single-threaded lane
+ * with a bounded queue, so operations on a copy run in submission order and a full lane is reported
+ * to the caller instead of growing without limit.
+ */
+@Service
+@Slf4j
+public class AsyncLoanService {
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoanService loanService;
+    private final UserService userService;
+    private final ThreadPoolExecutor[] lanes;
+    private final Cache<UUID, LoanOperationDTO> operations;
+
+    public AsyncLoanService(LoanService loanService, UserService userService, LibraryBorrowProperties properties,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.loanService = loanService;
+        this.userService = userService;
+        LibraryBorrowProperties.Async async = properties.async();
+        this.lanes = new ThreadPoolExecutor[async.lanes()];
+        for (int i = 0; i < lanes.length; i++) {
+            Thread.Builder thread = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform();
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(async.laneCapacity()), thread.name("loan-lane-" + i).factory());
+        }
+        this.operations = Caffeine.newBuilder()
+                .maximumSize(async.maxRetained())
+                .expireAfterWrite(async.retention())
+                .build();
+    }
+
+    public LoanOperationDTO submitBorrow(BorrowRequest request) {
+        // Unknown users are rejected up front; copies are only checked under the row lock
+        userService.getUserIdentity(request.userId());
+        return submit(LoanOperationDTO.Type.BORROW, request.userId(), request.inventoryId(),
+                () -> loanService.borrowBook(request).join());
+    }
+
+    public LoanOperationDTO submitReturn(ReturnRequest request) {
+        userService.getUserIdentity(request.userId());
+        return submit(LoanOperationDTO.Type.RETURN, request.userId(), request.inventoryId(),
+                () -> loanService.returnBook(request).join());
+    }
+
+    public LoanOperationDTO getOperation(UUID id) {
+        LoanOperationDTO operation = operations.getIfPresent(id);
+        if (operation == null) {
+            throw new ResourceNotFoundException("The operation is not found with id: " + id);
+        }
+        return operation;
+    }
+
+    private LoanOperationDTO submit(LoanOperationDTO.Type type, UUID userId, UUID inventoryId, Runnable action) {
+        LoanOperationDTO pending = new LoanOperationDTO(UUID.randomUUID(), type, userId, inventoryId,
+                LoanOperationDTO.Status.PENDING, null, Instant.now(), null);
+        operations.put(pending.id(), pending);
+        try {
+            lanes[Math.floorMod(inventoryId.hashCode(), lanes.length)].execute(() -> run(pending, action));
+        } catch (RejectedExecutionException e) {
+            operations.invalidate(pending.id());
+            log.warn("Loan queue is full - type: {}, inventoryId: {}", type, inventoryId);
+            throw new ServiceUnavailableException("Too many pending loan operations. Please try again later.",
+                    RETRY_AFTER);
+        }
+        log.debug("Loan operation queued - id: {}, type: {}, inventoryId: {}", pending.id(), type, inventoryId);
+        return pending;
+    }
+
+    private void run(LoanOperationDTO pending, Runnable action) {
+        operations.put(pending.id(), withStatus(pending, LoanOperationDTO.Status.RUNNING, null, null));
+        LoanOperationDTO done;
+        try {
+            // The lane waits out retry backoff so later operations on the copy keep their order
+            action.run();
+            done = withStatus(pending, LoanOperationDTO.Status.SUCCEEDED, null, Instant.now());
+        } catch (CompletionException e) {
+            done = failed(pending, e.getCause() != null ? e.getCause() : e);
+        } catch (RuntimeException e) {
+            done = failed(pending, e);
+        }
+        operations.put(pending.id(), done);
+        log.debug("Loan operation completed - id: {}, status: {}", done.id(), done.status());
+    }
+
+    private static LoanOperationDTO failed(LoanOperationDTO pending, Throwable failure) {
+        if (failure instanceof ResourceNotFoundException) {
+            return withStatus(pending, LoanOperationDTO.Status.NOT_FOUND, failure.getMessage(), Instant.now());
+        }
+        if (failure instanceof ConflictException) {
+            return withStatus(pending, LoanOperationDTO.Status.CONFLICT, failure.getMessage(), Instant.now());
+        }
+        log.error("Loan operation failed - id: {}, type: {}, inventoryId: {}",
+                pending.id(), pending.type(), pending.inventoryId(), failure);
+        return withStatus(pending, LoanOperationDTO.Status.FAILED, "An unexpected error occurred", Instant.now());
+    }
+
+    private static LoanOperationDTO withStatus(LoanOperationDTO operation, LoanOperationDTO.Status status,
+                                               String error, Instant completedAt) {
+        return new LoanOperationDTO(operation.id(), operation.type(), operation.userId(), operation.inventoryId(),
+                status, error, operation.submittedAt(), completedAt);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.api.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.LibraryReconcileProperties;
+import org.example.api.event.AvailableCopiesChangedEvent;
+import org.example.api.event.InventoryChangedEvent;
+import org.example.api.repository.AvailableCopiesRow;
+import org.example.api.repository.BookRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Repairs {@code book.available_copies} counters that no longer match the inventory table, for example
+ * after copies were added or removed with plain SQL. Books are scanned in id-ordered batches without locks;
+ * a counter that looks wrong is recounted in its own short transaction under the book's row lock, and
+ * the correction is published like a loan's, so the search index moves with it. The book's cached
+ * details and copy list are invalidated as well, as the drift means its copies changed.
+ * Scheduled by {@link org.example.api.config.ReconcileConfig}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "library.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class AvailableCopiesReconciler {
+    private static final UUID FIRST = new UUID(0, 0);
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LibraryReconcileProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * @return the number of counters that were repaired
+     */
+    public int reconcile() {
+        int checked = 0;
+        int repaired = 0;
+        UUID after = FIRST;
+        List<AvailableCopiesRow> batch;
+        do {
+            UUID from = after;
+            batch = transactionTemplate.execute(status ->
+                    bookRepository.findAvailableCopiesAfter(from, properties.batchSize()));
+            for (AvailableCopiesRow row : batch) {
+                if (row.getRecorded() != row.getActual()) {
+                    repaired += recount(row);
+                }
+            }
+            checked += batch.size();
+            if (!batch.isEmpty()) {
+                after = batch.getLast().bookId();
+            }
+        } while (batch.size() == properties.batchSize());
+        if (repaired > 0) {
+            log.warn("Repaired available copy counters - checked: {}, repaired: {}", checked, repaired);
+        } else {
+            log.debug("Available copy counters are consistent - checked: {}", checked);
+        }
+        return repaired;
+    }
+
+    private int recount(AvailableCopiesRow row) {
+        return transactionTemplate.execute(status -> {
+            Optional<Integer> recorded = bookRepository.lockForRecount(row.bookId());
+            if (recorded.isEmpty() || bookRepository.recountAvailableCopies(row.bookId()) == 0) {
+                return 0;
+            }
+            int corrected = bookRepository.findAvailableCopies(row.bookId()).orElseThrow();
+            log.debug("Recounted available copies - bookId: {}, recorded: {}, corrected: {}",
+                    row.bookId(), recorded.get(), corrected);
+            eventPublisher.publishEvent(new AvailableCopiesChangedEvent(row.bookId(), corrected - recorded.get()));
+            eventPublisher.publishEvent(new InventoryChangedEvent(row.bookId(), null));
+            return 1;
+        });
+    }
+}
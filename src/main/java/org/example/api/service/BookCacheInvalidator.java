@@ -0,0 +1,54 @@
+package org.example.api.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.CacheConfig;
+import org.example.api.config.LibraryBorrowProperties;
+import org.example.api.entity.Book;
+import org.example.api.entity.Inventory;
+import org.example.api.event.InventoryChangedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts cached book details only once the borrow/return transaction has committed,
+ * so a rolled-back change is never observed by readers. Bumping the book's version then moves
+ * readers to a new cache key, so details loaded before the commit but stored after the eviction
+ * are never served under the new ETag; the eviction only frees the entry of the old version.
+ * When the book's copies themselves changed, its cached copy list is evicted from the second-level
+ * cache too, since Hibernate never saw the change. A conditional loan is a native update as well, so the
+ * lent or returned copy and the book's copy list are evicted for the same reason, and nothing else.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookCacheInvalidator {
+    private final CacheManager cacheManager;
+    private final CatalogVersions catalogVersions;
+    private final EntityManagerFactory entityManagerFactory;
+    private final LibraryBorrowProperties borrowProperties;
+
+    @TransactionalEventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        Cache cache = cacheManager.getCache(CacheConfig.BOOK_DETAILS);
+        if (cache != null) {
+            log.debug("Evicting cached book details - bookId: {}", event.bookId());
+            cache.evict(catalogVersions.bookDetailsKey(event.bookId()));
+        }
+        if (event.inventoryId() == null) {
+            secondLevelCache().evictCollectionData(Book.class.getName() + ".inventories", event.bookId());
+        } else if (borrowProperties.mode() == LibraryBorrowProperties.Mode.CONDITIONAL) {
+            org.hibernate.Cache secondLevelCache = secondLevelCache();
+            secondLevelCache.evictEntityData(Inventory.class, event.inventoryId());
+            secondLevelCache.evictCollectionData(Book.class.getName() + ".inventories", event.bookId());
+        }
+        catalogVersions.bump(event.bookId());
+    }
+
+    private org.hibernate.Cache secondLevelCache() {
+        return entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class);
+    }
+}
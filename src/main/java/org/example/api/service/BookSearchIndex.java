@@ -0,0 +1,253 @@
+package org.example.api.service;
+
+import org.example.api.dto.BookSearchResultDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-memory inverted index over book titles and authors. Each book gets a dense ordinal, and every folded
+ * term maps to the sorted array of ordinals whose title or author contains it. A query matches the books
+ * that contain all of its terms, ranked by the rarity of the terms and whether they hit the title.
+ * The text is immutable once built; available copies are kept per ordinal and moved by committed loans.
+ */
+public final class BookSearchIndex {
+    static final int MAX_QUERY_TERMS = 8;
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double AUTHOR_WEIGHT = 1.0;
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparing(Hit::hasAvailableCopy, Comparator.reverseOrder())
+            .thenComparing(hit -> hit.document().sortTitle())
+            .thenComparing(hit -> hit.document().id());
+
+    private final Document[] documents;
+    private final Map<UUID, Integer> ordinals;
+    private final Map<String, int[]> postings;
+    private final AtomicIntegerArray availableCopies;
+
+    private BookSearchIndex(Document[] documents, Map<String, int[]> postings, int[] availableCopies) {
+        this.documents = documents;
+        this.postings = postings;
+        this.availableCopies = new AtomicIntegerArray(availableCopies);
+        this.ordinals = new HashMap<>(documents.length * 2);
+        for (int ordinal = 0; ordinal < documents.length; ordinal++) {
+            ordinals.put(documents[ordinal].id(), ordinal);
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return documents.length;
+    }
+
+    public int termCount() {
+        return postings.size();
+    }
+
+    /**
+     * @return the total copies of a book as indexed, or -1 for a book added after the index was built
+     */
+    public int totalCopies(UUID bookId) {
+        Integer ordinal = ordinals.get(bookId);
+        return ordinal != null ? documents[ordinal].totalCopies() : -1;
+    }
+
+    /**
+     * Sets the available copies of a book, kept between zero and its total copies.
+     *
+     * @return whether the count changed
+     */
+    public boolean setAvailableCopies(UUID bookId, int available) {
+        Integer ordinal = ordinals.get(bookId);
+        if (ordinal == null) {
+            return false;
+        }
+        int clamped = Math.clamp(available, 0, documents[ordinal].totalCopies());
+        return availableCopies.getAndSet(ordinal, clamped) != clamped;
+    }
+
+    /**
+     * Moves the available copies of a book by {@code delta}, kept between zero and its total copies.
+     * Books added after the index was built are ignored.
+     */
+    public void adjustAvailableCopies(UUID bookId, int delta) {
+        Integer ordinal = ordinals.get(bookId);
+        if (ordinal != null) {
+            int total = documents[ordinal].totalCopies();
+            availableCopies.updateAndGet(ordinal, available -> Math.clamp((long) available + delta, 0, total));
+        }
+    }
+
+    /**
+     * @return the books at ranks {@code offset} to {@code offset + limit - 1} for the query, best first
+     */
+    public List<BookSearchResultDTO> search(String query, int offset, int limit) {
+        List<String> terms = SearchText.tokens(query).stream().distinct().limit(MAX_QUERY_TERMS).toList();
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        int[][] lists = new int[terms.size()][];
+        double[] weights = new double[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(terms.get(i));
+            if (lists[i] == null) {
+                return List.of();
+            }
+            weights[i] = Math.log(1 + (double) documents.length / lists[i].length);
+        }
+        int[] matches = intersect(lists);
+        if (matches.length <= offset) {
+            return List.of();
+        }
+
+        int wanted = (int) Math.min((long) offset + limit, matches.length);
+        PriorityQueue<Hit> best = new PriorityQueue<>(wanted + 1, RANKING.reversed());
+        for (int ordinal : matches) {
+            best.add(new Hit(documents[ordinal], score(documents[ordinal], terms, weights),
+                    availableCopies.get(ordinal)));
+            if (best.size() > wanted) {
+                best.poll();
+            }
+        }
+        List<Hit> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        return ranked.subList(offset, ranked.size()).stream()
+                .map(hit -> hit.document().toResult(hit.availableCopies()))
+                .toList();
+    }
+
+    private static double score(Document document, List<String> terms, double[] weights) {
+        double score = 0;
+        for (int i = 0; i < weights.length; i++) {
+            if (Arrays.binarySearch(document.titleTerms(), terms.get(i)) >= 0) {
+                score += weights[i] * TITLE_WEIGHT;
+            }
+            if (Arrays.binarySearch(document.authorTerms(), terms.get(i)) >= 0) {
+                score += weights[i] * AUTHOR_WEIGHT;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Intersects sorted posting lists, shortest first, galloping through the longer ones so a rare term
+     * costs a few probes per match instead of a walk over every posting of a common one.
+     */
+    static int[] intersect(int[][] lists) {
+        int[][] bySize = lists.clone();
+        Arrays.sort(bySize, Comparator.comparingInt(list -> list.length));
+        int[] result = bySize[0];
+        int length = result.length;
+        for (int i = 1; i < bySize.length && length > 0; i++) {
+            int[] other = bySize[i];
+            int[] next = new int[length];
+            int count = 0;
+            int from = 0;
+            for (int j = 0; j < length && from < other.length; j++) {
+                from = gallop(other, from, result[j]);
+                if (from < other.length && other[from] == result[j]) {
+                    next[count++] = result[j];
+                    from++;
+                }
+            }
+            result = next;
+            length = count;
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
+    // First index at or after from whose value is not less than target
+    private static int gallop(int[] list, int from, int target) {
+        int bound = 1;
+        while (from + bound < list.length && list[from + bound] < target) {
+            bound <<= 1;
+        }
+        int low = from + (bound >> 1);
+        int high = Math.min(from + bound + 1, list.length);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (list[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private record Document(UUID id, String title, String author, String image, String sortTitle,
+                            String[] titleTerms, String[] authorTerms, int totalCopies) {
+        BookSearchResultDTO toResult(int availableCopies) {
+            return new BookSearchResultDTO(id, title, author, image, totalCopies, availableCopies);
+        }
+    }
+
+    private record Hit(Document document, double score, int availableCopies) {
+        boolean hasAvailableCopy() {
+            return availableCopies > 0;
+        }
+    }
+
+    public static final class Builder {
+        private final List<Document> documents = new ArrayList<>();
+        private final List<Integer> availableCopies = new ArrayList<>();
+        private final Map<String, IntBuffer> postings = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder add(UUID id, String title, String author, String image, int totalCopies, int availableCopies) {
+            String[] titleTerms = sortedTerms(title);
+            String[] authorTerms = sortedTerms(author);
+            int ordinal = documents.size();
+            documents.add(new Document(id, title, author, image, title == null ? "" : SearchText.fold(title),
+                    titleTerms, authorTerms, totalCopies));
+            this.availableCopies.add(availableCopies);
+
+            TreeSet<String> terms = new TreeSet<>(Arrays.asList(titleTerms));
+            terms.addAll(Arrays.asList(authorTerms));
+            // Ordinals only grow, so appending keeps every posting list sorted
+            terms.forEach(term -> postings.computeIfAbsent(term, key -> new IntBuffer()).add(ordinal));
+            return this;
+        }
+
+        public BookSearchIndex build() {
+            Map<String, int[]> frozen = new HashMap<>(postings.size() * 2);
+            postings.forEach((term, buffer) -> frozen.put(term, buffer.toArray()));
+            return new BookSearchIndex(documents.toArray(Document[]::new), frozen,
+                    availableCopies.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private static String[] sortedTerms(String text) {
+            return SearchText.tokens(text).stream().distinct().sorted().toArray(String[]::new);
+        }
+    }
+
+    private static final class IntBuffer {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package org.example.api.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.dto.BookAvailabilityDTO;
+import org.example.api.dto.BookSearchResultDTO;
+import org.example.api.dto.BookSuggestionDTO;
+import org.example.api.dto.PageDTO;
+import org.example.api.event.AvailableCopiesChangedEvent;
+import org.example.api.exception.BadRequestException;
+import org.example.api.repository.BookInventoryRow;
+import org.example.api.repository.BookRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Title and author search and typeahead, answered from a {@link BookSearchIndex} and a
+ * {@link BookSuggestionTrie} without touching the database. Both are built in one pass over the catalog
+ * before the application accepts requests and rebuilt by {@link #refresh()} when books are added;
+ * committed loans move the index's available copies in between, so results carry live availability,
+ * and a refresh that finds the catalog unchanged corrects available copies that drifted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BookSearchService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_QUERY_LENGTH = 200;
+    private static final int AVAILABILITY_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogVersions catalogVersions;
+    private final Object indexLock = new Object();
+    private volatile BookSearchIndex index = BookSearchIndex.builder().build();
+    private volatile BookSuggestionTrie suggestions = BookSuggestionTrie.builder().build();
+    // Books with a loan committed while the catalog or their availability is read; guarded by indexLock
+    private Set<UUID> changedDuringRead;
+
+    @PostConstruct
+    void buildIndex() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index and the trie when the number of books or of a book's copies no longer matches
+     * the index, and otherwise sets the index's available copies from the books' counters. A rebuild
+     * moves the catalog to a new version, so clients revalidating the book list see the change too.
+     */
+    public void refresh() {
+        long books = bookRepository.count();
+        if (books != index.size()) {
+            log.info("Catalog changed - books: {}, indexed: {}", books, index.size());
+            rebuild();
+            catalogVersions.bumpCatalog();
+        } else if (!refreshAvailability()) {
+            log.info("Copies changed - books: {}", books);
+            rebuild();
+            catalogVersions.bumpCatalog();
+        }
+    }
+
+    /**
+     * @return false if a book's copies no longer match the index, which then needs a rebuild
+     */
+    private boolean refreshAvailability() {
+        BookSearchIndex current = index;
+        int corrected = 0;
+        List<BookAvailabilityDTO> batch;
+        UUID after = null;
+        do {
+            UUID from = after;
+            batch = readAvailability(() -> from == null
+                    ? bookRepository.summarizeAvailability(Limit.of(AVAILABILITY_BATCH_SIZE))
+                    : bookRepository.summarizeAvailabilityAfter(from, Limit.of(AVAILABILITY_BATCH_SIZE)));
+            int applied = applyAvailability(current, batch);
+            if (applied < 0) {
+                return false;
+            }
+            corrected += applied;
+            if (!batch.isEmpty()) {
+                after = batch.getLast().bookId();
+            }
+        } while (batch.size() == AVAILABILITY_BATCH_SIZE);
+        if (corrected > 0) {
+            log.warn("Corrected available copies in the search index - books: {}", corrected);
+        }
+        return true;
+    }
+
+    private void rebuild() {
+        long start = System.nanoTime();
+        synchronized (indexLock) {
+            changedDuringRead = new HashSet<>();
+        }
+        BookSearchIndex.Builder indexBuilder = BookSearchIndex.builder();
+        BookSuggestionTrie.Builder trieBuilder = BookSuggestionTrie.builder();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<BookInventoryRow> rows = bookRepository.streamCatalog()) {
+                BookInventoryRow book = null;
+                int total = 0;
+                int available = 0;
+                for (BookInventoryRow row : (Iterable<BookInventoryRow>) rows::iterator) {
+                    if (book != null && !book.bookId().equals(row.bookId())) {
+                        add(indexBuilder, trieBuilder, book, total, available);
+                        total = 0;
+                        available = 0;
+                    }
+                    book = row;
+                    if (row.inventoryId() != null) {
+                        total++;
+                        available += row.userId() == null ? 1 : 0;
+                    }
+                }
+                if (book != null) {
+                    add(indexBuilder, trieBuilder, book, total, available);
+                }
+            }
+        });
+        BookSearchIndex builtIndex = indexBuilder.build();
+        BookSuggestionTrie builtTrie = trieBuilder.build();
+        List<UUID> changed;
+        synchronized (indexLock) {
+            changed = List.copyOf(changedDuringRead);
+            changedDuringRead = null;
+            index = builtIndex;
+            suggestions = builtTrie;
+        }
+        // Loans committed during the read may or may not be in it, so their books are read again once
+        // the new index receives loans; replaying the deltas would count those already read twice
+        for (int from = 0; from < changed.size(); from += AVAILABILITY_BATCH_SIZE) {
+            List<UUID> bookIds = changed.subList(from, Math.min(changed.size(), from + AVAILABILITY_BATCH_SIZE));
+            applyAvailability(builtIndex, readAvailability(() -> bookRepository.summarizeAvailabilityByBookIdIn(bookIds)));
+        }
+        log.info("Built search index - books: {}, terms: {}, suggestions: {}, trie nodes: {}, reloaded: {}, took: {} ms",
+                builtIndex.size(), builtIndex.termCount(), builtTrie.size(), builtTrie.nodeCount(), changed.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<BookAvailabilityDTO> readAvailability(Supplier<List<BookAvailabilityDTO>> query) {
+        synchronized (indexLock) {
+            changedDuringRead = new HashSet<>();
+        }
+        return query.get();
+    }
+
+    /**
+     * Sets the available copies read by {@link #readAvailability}, except for books with a loan committed
+     * meanwhile: the read may or may not include it, so those are left to the next refresh.
+     *
+     * @return the number of books whose count changed, or -1 if a book's copies no longer match the index
+     */
+    private int applyAvailability(BookSearchIndex target, List<BookAvailabilityDTO> books) {
+        int corrected = 0;
+        synchronized (indexLock) {
+            try {
+                for (BookAvailabilityDTO book : books) {
+                    if (target.totalCopies(book.bookId()) != book.totalCopies()) {
+                        return -1;
+                    }
+                    if (!changedDuringRead.contains(book.bookId())
+                            && target.setAvailableCopies(book.bookId(), (int) book.availableCopies())) {
+                        corrected++;
+                    }
+                }
+            } finally {
+                changedDuringRead = null;
+            }
+        }
+        return corrected;
+    }
+
+    private static void add(BookSearchIndex.Builder indexBuilder, BookSuggestionTrie.Builder trieBuilder,
+                            BookInventoryRow book, int total, int available) {
+        indexBuilder.add(book.bookId(), book.title(), book.author(), book.image(), total, available);
+        trieBuilder.add(book.bookId(), book.title(), book.author(), total);
+    }
+
+    public PageDTO<BookSearchResultDTO> search(String query, String cursor, int limit) {
+        validateLimit(limit, MAX_PAGE_SIZE);
+        validateQuery(query);
+
+        int offset = cursor == null ? 0 : PageCursor.decodeOffset(cursor);
+        List<BookSearchResultDTO> found = index.search(query, offset, limit + 1);
+        boolean hasNext = found.size() > limit;
+        List<BookSearchResultDTO> items = hasNext ? found.subList(0, limit) : found;
+        log.debug("Search matched - query: {}, offset: {}, returned: {}", query, offset, items.size());
+
+        return new PageDTO<>(items, hasNext ? PageCursor.encodeOffset(offset + limit) : null);
+    }
+
+    public List<BookSuggestionDTO> suggest(String query, int limit) {
+        validateLimit(limit, BookSuggestionTrie.MAX_COMPLETIONS);
+        validateQuery(query);
+        return suggestions.suggest(query, limit);
+    }
+
+    // Deltas rather than recounts, so concurrent loans commute and no query is made after the commit
+    @TransactionalEventListener
+    public void onAvailableCopiesChanged(AvailableCopiesChangedEvent event) {
+        synchronized (indexLock) {
+            index.adjustAvailableCopies(event.bookId(), event.delta());
+            if (changedDuringRead != null) {
+                changedDuringRead.add(event.bookId());
+            }
+        }
+    }
+
+    private static void validateLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new BadRequestException("Limit must be between 1 and " + max);
+        }
+    }
+
+    private static void validateQuery(String query) {
+        if (query == null || query.isBlank()) {
+            throw new BadRequestException("Search query must not be blank");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new BadRequestException("Search query must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+    }
+}
@@ -2,53 +2,92 @@ package org.example.api.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.CacheConfig;
+import org.example.api.config.LibraryBorrowProperties;
+import org.example.api.dto.BookAvailabilityDTO;
+import org.example.api.dto.BatchLoanRequest;
 import org.example.api.dto.BookDetailsDTO;
+import org.example.api.dto.InventoryDTO;
+import org.example.api.dto.LoanItemResultDTO;
+import org.example.api.dto.BorrowAnyRequest;
 import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.PageDTO;
 import org.example.api.dto.ReturnRequest;
-import org.example.api.entity.Book;
 import org.example.api.entity.Inventory;
 import org.example.api.entity.User;
+import org.example.api.event.AvailableCopiesChangedEvent;
+import org.example.api.event.InventoryChangedEvent;
+import org.example.api.exception.BadRequestException;
 import org.example.api.exception.ConflictException;
 import org.example.api.exception.ResourceNotFoundException;
 import org.example.api.mapper.LibraryMapper;
+import org.example.api.repository.BookInventoryRow;
 import org.example.api.repository.BookRepository;
 import org.example.api.repository.InventoryRepository;
-import org.springframework.dao.DataAccessException;
-import org.springframework.dao.PessimisticLockingFailureException;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.EnableRetry;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
-import org.springframework.retry.support.RetrySynchronizationManager;
+import org.example.api.repository.UserIdentity;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@EnableRetry
-// TODO: Consider adding caching for frequently accessed data
 public class BookService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int DEFAULT_AVAILABILITY_PAGE_SIZE = 100;
+    public static final int MAX_AVAILABILITY_PAGE_SIZE = 1000;
+
     private final LibraryMapper libraryMapper;
     private final BookRepository bookRepository;
     private final InventoryRepository inventoryRepository;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LibraryBorrowProperties borrowProperties;
+    private final LoanMetrics loanMetrics;
 
     @Transactional(readOnly = true)
-    public List<BookDetailsDTO> getAllBooks() {
-        log.debug("Fetching all books from database");
-        List<Book> books = bookRepository.findAll();
-        log.debug("Found {} books", books.size());
+    public PageDTO<BookDetailsDTO> getBooks(String cursor, int limit) {
+        validateLimit(limit, MAX_PAGE_SIZE);
+
+        log.debug("Fetching books page - cursor: {}, limit: {}", cursor, limit);
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<UUID> ids = cursor == null
+                ? bookRepository.findPageIds(fetchLimit)
+                : bookRepository.findPageIdsAfter(PageCursor.decode(cursor), fetchLimit);
+        log.debug("Found {} books", ids.size());
+
+        boolean hasNext = ids.size() > limit;
+        List<UUID> pageIds = hasNext ? ids.subList(0, limit) : ids;
+        if (pageIds.isEmpty()) {
+            return new PageDTO<>(List.of(), null);
+        }
 
-        return books.stream()
+        List<BookDetailsDTO> items = bookRepository.findWithInventoriesByIdInOrderByIdAsc(pageIds).stream()
                 .map(libraryMapper::toBookDetailsDTO)
                 .toList();
+        String nextCursor = hasNext ? PageCursor.encode(pageIds.getLast()) : null;
+
+        return new PageDTO<>(items, nextCursor);
     }
 
+    @Cacheable(cacheNames = CacheConfig.BOOK_DETAILS, key = "@catalogVersions.bookDetailsKey(#id)")
     @Transactional(readOnly = true)
     public BookDetailsDTO getBookById(UUID id) {
         log.debug("Fetching book with id: {}", id);
@@ -57,90 +96,281 @@ public class BookService {
                 .orElseThrow(() -> new ResourceNotFoundException("The book is not found with id: " + id));
     }
 
-    @Retryable(
-            retryFor = {PessimisticLockingFailureException.class, DataAccessException.class},
-            maxAttempts = 3,
-            backoff = @Backoff(
-                    delay = 1000,
-                    maxDelay = 4000,
-                    multiplier = 2,
-                    random = true
-            )
-    )
+    @Transactional(readOnly = true)
+    public PageDTO<BookAvailabilityDTO> getAvailability(String cursor, int limit) {
+        validateLimit(limit, MAX_AVAILABILITY_PAGE_SIZE);
+
+        log.debug("Fetching availability page - cursor: {}, limit: {}", cursor, limit);
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<BookAvailabilityDTO> summaries = cursor == null
+                ? bookRepository.summarizeAvailability(fetchLimit)
+                : bookRepository.summarizeAvailabilityAfter(PageCursor.decode(cursor), fetchLimit);
+
+        boolean hasNext = summaries.size() > limit;
+        List<BookAvailabilityDTO> items = hasNext ? summaries.subList(0, limit) : summaries;
+        String nextCursor = hasNext ? PageCursor.encode(items.getLast().bookId()) : null;
+
+        return new PageDTO<>(items, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public BookAvailabilityDTO getBookAvailability(UUID bookId) {
+        log.debug("Fetching availability of book with id: {}", bookId);
+        return bookRepository.summarizeAvailabilityByBookId(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("The book is not found with id: " + bookId));
+    }
+
+    @Transactional(readOnly = true)
+    public void exportCatalog(Consumer<BookDetailsDTO> sink) {
+        log.debug("Streaming catalog export");
+        long exported = 0;
+        List<BookInventoryRow> current = new ArrayList<>();
+        try (Stream<BookInventoryRow> rows = bookRepository.streamCatalog()) {
+            for (BookInventoryRow row : (Iterable<BookInventoryRow>) rows::iterator) {
+                if (!current.isEmpty() && !current.getFirst().bookId().equals(row.bookId())) {
+                    sink.accept(libraryMapper.toBookDetailsDTOFromRows(current));
+                    current.clear();
+                    exported++;
+                }
+                current.add(row);
+            }
+        }
+        if (!current.isEmpty()) {
+            sink.accept(libraryMapper.toBookDetailsDTOFromRows(current));
+            exported++;
+        }
+        log.debug("Exported {} books", exported);
+    }
+
     @Transactional
     public void borrowBook(BorrowRequest borrowRequest) {
         UUID inventoryId = borrowRequest.inventoryId();
         UUID userId = borrowRequest.userId();
         log.debug("Processing borrow request - userId: {}, inventoryId: {}", userId, inventoryId);
-        if (RetrySynchronizationManager.getContext() != null) {
-            log.debug("Attempting to borrow book. Attempt number: {}",
-                    RetrySynchronizationManager.getContext().getRetryCount() + 1);
-        }
 
-        Inventory inventory = inventoryRepository.findByIdWithPessimisticLock(inventoryId)
-                .orElseThrow(() -> {
-                    log.warn("Inventory not found with id: {}", inventoryId);
-                    return new ResourceNotFoundException("The inventory is not found with id: " + inventoryId);
-                });
+        UUID bookId = switch (borrowProperties.mode()) {
+            case PESSIMISTIC -> borrowWithLock(inventoryId, userId);
+            case CONDITIONAL -> borrowIfAvailable(inventoryId, userId);
+        };
+        eventPublisher.publishEvent(new InventoryChangedEvent(bookId, inventoryId));
+        log.info("Book borrowed successfully - userId: {}, inventoryId: {}", userId, inventoryId);
+    }
+
+    private UUID borrowWithLock(UUID inventoryId, UUID userId) {
+        Inventory inventory = lockInventory(inventoryId);
 
         if (inventory.getUser() != null) {
             log.warn("Attempted to borrow already borrowed book - inventoryId: {}", inventoryId);
             throw new ConflictException("Book is already borrowed");
         }
 
-        User user = userService.getUserById(userId);
+        UserIdentity borrower = userService.getUserIdentity(userId);
 
-        inventory.setUser(user);
+        inventory.setUser(userService.getUserReference(borrower.id()));
         inventory.setLoanDate(Instant.now());
         inventoryRepository.save(inventory);
-        log.info("Book borrowed successfully - userId: {}, inventoryId: {}", userId, inventoryId);
+        adjustAvailableCopies(inventory.getBook().getId(), -1);
+        return inventory.getBook().getId();
+    }
+
+    private UUID borrowIfAvailable(UUID inventoryId, UUID userId) {
+        UserIdentity borrower = userService.getUserIdentity(userId);
+
+        int updated = inventoryRepository.borrowIfAvailable(inventoryId, borrower.id(), Instant.now());
+        if (updated == 0) {
+            // Only the losing side pays for a read, to tell a missing copy from a taken one
+            findInventory(inventoryRepository.findById(inventoryId), inventoryId);
+            log.warn("Attempted to borrow already borrowed book - inventoryId: {}", inventoryId);
+            throw new ConflictException("Book is already borrowed");
+        }
+        UUID bookId = findBookId(inventoryId);
+        adjustAvailableCopies(bookId, -1);
+        return bookId;
+    }
+
+    @Transactional
+    public InventoryDTO borrowAnyCopy(BorrowAnyRequest request) {
+        UUID bookId = request.bookId();
+        UUID userId = request.userId();
+        log.debug("Processing borrow-any request - userId: {}, bookId: {}", userId, bookId);
+
+        UserIdentity borrower = userService.getUserIdentity(userId);
+
+        Inventory inventory = inventoryRepository.findAvailableSkipLocked(bookId, Limit.of(1)).stream()
+                .findFirst()
+                .orElseThrow(() -> {
+                    if (!bookRepository.existsById(bookId)) {
+                        log.warn("Book not found with id: {}", bookId);
+                        return new ResourceNotFoundException("The book is not found with id: " + bookId);
+                    }
+                    log.warn("No available copy to borrow - bookId: {}", bookId);
+                    return new ConflictException("No copies of the book are available");
+                });
+
+        inventory.setUser(userService.getUserReference(borrower.id()));
+        inventory.setLoanDate(Instant.now());
+        inventoryRepository.save(inventory);
+        adjustAvailableCopies(bookId, -1);
+        eventPublisher.publishEvent(new InventoryChangedEvent(bookId, inventory.getId()));
+        log.info("Book borrowed successfully - userId: {}, bookId: {}, inventoryId: {}",
+                userId, bookId, inventory.getId());
+        return libraryMapper.toInventoryDTO(inventory);
     }
 
-    @Retryable(
-            retryFor = {PessimisticLockingFailureException.class, DataAccessException.class},
-            maxAttempts = 3,
-            backoff = @Backoff(
-                    delay = 1000,
-                    maxDelay = 4000,
-                    multiplier = 2,
-                    random = true
-            )
-    )
     @Transactional
     public void returnBook(ReturnRequest request) {
         UUID inventoryId = request.inventoryId();
         UUID userId = request.userId();
         log.debug("Processing return request - userId: {}, inventoryId: {}", userId, inventoryId);
-        if (RetrySynchronizationManager.getContext() != null) {
-            log.debug("Attempting to return book. Attempt number: {}",
-                    RetrySynchronizationManager.getContext().getRetryCount() + 1);
+
+        UUID bookId = switch (borrowProperties.mode()) {
+            case PESSIMISTIC -> returnWithLock(inventoryId, userId);
+            case CONDITIONAL -> returnIfBorrowed(inventoryId, userId);
+        };
+        eventPublisher.publishEvent(new InventoryChangedEvent(bookId, inventoryId));
+        log.info("Book returned successfully - userId: {}, inventoryId: {}", userId, inventoryId);
+    }
+
+    private UUID returnWithLock(UUID inventoryId, UUID userId) {
+        Inventory inventory = lockInventory(inventoryId);
+        checkReturnable(inventory, userId);
+
+        inventory.setUser(null);
+        inventory.setLoanDate(null);
+        inventoryRepository.save(inventory);
+        adjustAvailableCopies(inventory.getBook().getId(), 1);
+        return inventory.getBook().getId();
+    }
+
+    private UUID returnIfBorrowed(UUID inventoryId, UUID userId) {
+        if (inventoryRepository.returnIfBorrowedBy(inventoryId, userId) == 0) {
+            Inventory inventory = findInventory(inventoryRepository.findById(inventoryId), inventoryId);
+            checkReturnable(inventory, userId);
+            // Returned by a concurrent request between the update and the read above
+            throw new ConflictException("Book is not currently borrowed");
         }
+        UUID bookId = findBookId(inventoryId);
+        adjustAvailableCopies(bookId, 1);
+        return bookId;
+    }
 
-        Inventory inventory = inventoryRepository.findByIdWithPessimisticLock(inventoryId)
-                .orElseThrow(() -> {
-                    log.warn("Inventory not found with id: {}", inventoryId);
-                    return new ResourceNotFoundException("The inventory is not found with id: " + inventoryId);
-                });
+    @Transactional
+    public List<LoanItemResultDTO> borrowBooks(BatchLoanRequest request) {
+        UUID userId = request.userId();
+        log.debug("Processing batch borrow request - userId: {}, copies: {}", userId, request.inventoryIds().size());
+
+        UserIdentity borrower = userService.getUserIdentity(userId);
+        User user = userService.getUserReference(borrower.id());
+        Instant loanDate = Instant.now();
 
+        return applyToLockedCopies(request.inventoryIds(), -1, inventory -> {
+            if (inventory.getUser() != null) {
+                throw new ConflictException("Book is already borrowed");
+            }
+            inventory.setUser(user);
+            inventory.setLoanDate(loanDate);
+        });
+    }
+
+    @Transactional
+    public List<LoanItemResultDTO> returnBooks(BatchLoanRequest request) {
+        UUID userId = request.userId();
+        log.debug("Processing batch return request - userId: {}, copies: {}", userId, request.inventoryIds().size());
+
+        return applyToLockedCopies(request.inventoryIds(), 1, inventory -> {
+            checkReturnable(inventory, userId);
+            inventory.setUser(null);
+            inventory.setLoanDate(null);
+        });
+    }
+
+    /**
+     * Locks all requested copies in one statement and applies the change to each of them.
+     * A copy that cannot be changed is reported in its result instead of failing the batch;
+     * the changed copies are written with JDBC batching when the transaction flushes.
+     * Each changed copy moves its book's available-copy counter by {@code availableDelta}.
+     */
+    private List<LoanItemResultDTO> applyToLockedCopies(List<UUID> inventoryIds, int availableDelta,
+                                                        Consumer<Inventory> change) {
+        Map<UUID, Inventory> locked = inventoryRepository.findAllByIdWithPessimisticLock(Set.copyOf(inventoryIds))
+                .stream()
+                .collect(Collectors.toMap(Inventory::getId, Function.identity()));
+
+        Set<UUID> seen = new HashSet<>();
+        List<Inventory> changed = new ArrayList<>();
+        List<LoanItemResultDTO> results = new ArrayList<>(inventoryIds.size());
+        for (UUID inventoryId : inventoryIds) {
+            if (!seen.add(inventoryId)) {
+                results.add(new LoanItemResultDTO(inventoryId, LoanItemResultDTO.Status.CONFLICT,
+                        "Inventory is listed more than once"));
+                continue;
+            }
+            try {
+                Inventory inventory = findInventory(Optional.ofNullable(locked.get(inventoryId)), inventoryId);
+                change.accept(inventory);
+                changed.add(inventory);
+                results.add(new LoanItemResultDTO(inventoryId, LoanItemResultDTO.Status.OK, null));
+            } catch (ResourceNotFoundException e) {
+                results.add(new LoanItemResultDTO(inventoryId, LoanItemResultDTO.Status.NOT_FOUND, e.getMessage()));
+            } catch (ConflictException e) {
+                results.add(new LoanItemResultDTO(inventoryId, LoanItemResultDTO.Status.CONFLICT, e.getMessage()));
+            }
+        }
+
+        inventoryRepository.saveAll(changed);
+        // Counters are updated in book id order so concurrent batches lock book rows in the same order
+        changed.stream()
+                .collect(Collectors.groupingBy(inventory -> inventory.getBook().getId(), TreeMap::new,
+                        Collectors.summingInt(inventory -> availableDelta)))
+                .forEach(this::adjustAvailableCopies);
+        changed.forEach(inventory -> eventPublisher.publishEvent(
+                new InventoryChangedEvent(inventory.getBook().getId(), inventory.getId())));
+        log.info("Batch processed - copies: {}, changed: {}", inventoryIds.size(), changed.size());
+        return results;
+    }
+
+    private void adjustAvailableCopies(UUID bookId, int delta) {
+        bookRepository.adjustAvailableCopies(bookId, delta);
+        eventPublisher.publishEvent(new AvailableCopiesChangedEvent(bookId, delta));
+    }
+
+    private static void checkReturnable(Inventory inventory, UUID userId) {
         if (inventory.getUser() == null) {
-            log.warn("Attempted to return non-borrowed book - inventoryId: {}", inventoryId);
+            log.warn("Attempted to return non-borrowed book - inventoryId: {}", inventory.getId());
             throw new ConflictException("Book is not currently borrowed");
         }
 
         UUID actualUserId = inventory.getUser().getId();
         if (!actualUserId.equals(userId)) {
             log.warn("Unauthorized return attempt - inventoryId: {}, userId: {}, actualUserId: {}",
-                    inventoryId, userId, actualUserId);
+                    inventory.getId(), userId, actualUserId);
             throw new ConflictException("Book can't be returned by another user");
         }
+    }
 
-        inventory.setUser(null);
-        inventory.setLoanDate(null);
-        inventoryRepository.save(inventory);
-        log.info("Book returned successfully - userId: {}, inventoryId: {}", userId, inventoryId);
+    private Inventory lockInventory(UUID inventoryId) {
+        return findInventory(loanMetrics.lockQuery().record(
+                () -> inventoryRepository.findByIdWithPessimisticLock(inventoryId)), inventoryId);
+    }
+
+    private static Inventory findInventory(Optional<Inventory> inventory, UUID inventoryId) {
+        return inventory.orElseThrow(() -> {
+            log.warn("Inventory not found with id: {}", inventoryId);
+            return new ResourceNotFoundException("The inventory is not found with id: " + inventoryId);
+        });
+    }
+
+    private UUID findBookId(UUID inventoryId) {
+        return inventoryRepository.findBookIdById(inventoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("The inventory is not found with id: " + inventoryId));
+    }
+
+    private static void validateLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new BadRequestException("Limit must be between 1 and " + max);
+        }
     }
 
-    @Recover
     public void recoverBorrowOperation(Exception e, BorrowRequest request) throws Exception {
         if (e instanceof ConflictException || e instanceof ResourceNotFoundException) {
             throw e;
@@ -151,7 +381,26 @@ public class BookService {
         throw new ConflictException("Unable to complete borrow operation. Please try again later.");
     }
 
-    @Recover
+    public InventoryDTO recoverBorrowAnyOperation(Exception e, BorrowAnyRequest request) throws Exception {
+        if (e instanceof ConflictException || e instanceof ResourceNotFoundException) {
+            throw e;
+        }
+
+        log.error("Failed to complete borrow operation after retries. BookId: {}, UserId: {}",
+                request.bookId(), request.userId(), e);
+        throw new ConflictException("Unable to complete borrow operation. Please try again later.");
+    }
+
+    public List<LoanItemResultDTO> recoverBatchOperation(Exception e, BatchLoanRequest request) throws Exception {
+        if (e instanceof ConflictException || e instanceof ResourceNotFoundException) {
+            throw e;
+        }
+
+        log.error("Failed to complete batch operation after retries. UserId: {}, copies: {}",
+                request.userId(), request.inventoryIds().size(), e);
+        throw new ConflictException("Unable to complete batch operation. Please try again later.");
+    }
+
     public void recoverReturnOperation(Exception e, ReturnRequest request) throws Exception {
         if (e instanceof ConflictException || e instanceof ResourceNotFoundException) {
             throw e;
@@ -0,0 +1,398 @@
+package org.example.api.service;
+
+import org.example.api.dto.BookSuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Radix trie over folded titles and author names for typeahead. Nodes live in parallel primitive arrays,
+ * children of a node are contiguous and sorted by their first character, and edge labels are ranges of
+ * one shared array holding all folded keys (one byte per character unless a key needs more).
+ * Every node holds its best {@link #MAX_COMPLETIONS} entries, precomputed at build time, so a lookup
+ * walks the prefix once and allocates nothing.
+ * Entries are ranked by weight (copies in the catalog), then shorter and alphabetically first.
+ */
+public final class BookSuggestionTrie {
+    public static final int MAX_COMPLETIONS = 10;
+    private static final int ROOT = 0;
+    private static final BookSuggestionDTO.Type[] TYPES = BookSuggestionDTO.Type.values();
+
+    private final byte[] latin1Keys;
+    private final char[] utf16Keys;
+    private final int[] keyStart;
+    private final String[] texts;
+    private final byte[] types;
+    private final UUID[] bookIds;
+
+    private final int[] labelStart;
+    private final int[] labelEnd;
+    private final char[] firstChar;
+    private final int[] firstChild;
+    private final char[] childCount;
+    private final int[] completionStart;
+    private final byte[] completionCount;
+    private final int[] completions;
+
+    private BookSuggestionTrie(List<Entry> entries) {
+        entries.sort(Comparator.comparing(Entry::key));
+        int size = entries.size();
+        String[] keys = new String[size];
+        texts = new String[size];
+        types = new byte[size];
+        bookIds = new UUID[size];
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries.get(i);
+            keys[i] = entry.key;
+            texts[i] = entry.text;
+            types[i] = (byte) entry.type.ordinal();
+            bookIds[i] = entry.bookId;
+        }
+
+        Integer[] byRank = new Integer[size];
+        Arrays.setAll(byRank, i -> i);
+        Arrays.sort(byRank, Comparator.<Integer>comparingLong(i -> -entries.get(i).weight)
+                .thenComparingInt(i -> keys[i].length())
+                .thenComparing(i -> keys[i])
+                .thenComparing(i -> texts[i]));
+        int[] rank = new int[size];
+        for (int r = 0; r < size; r++) {
+            rank[byRank[r]] = r;
+        }
+
+        keyStart = new int[size + 1];
+        boolean latin1 = true;
+        for (int i = 0; i < size; i++) {
+            keyStart[i + 1] = keyStart[i] + keys[i].length();
+            latin1 &= keys[i].chars().allMatch(c -> c <= 0xFF);
+        }
+        latin1Keys = latin1 ? new byte[keyStart[size]] : null;
+        utf16Keys = latin1 ? null : new char[keyStart[size]];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < keys[i].length(); j++) {
+                if (latin1) {
+                    latin1Keys[keyStart[i] + j] = (byte) keys[i].charAt(j);
+                } else {
+                    utf16Keys[keyStart[i] + j] = keys[i].charAt(j);
+                }
+            }
+        }
+
+        // A radix trie over n keys has fewer than 2n nodes
+        Nodes nodes = new Nodes(keys, 2 * size + 1, rank, byRank);
+        nodes.count = 1;
+        if (size > 0) {
+            nodes.fill(ROOT, 0, size, 0);
+        }
+        int count = nodes.count;
+        labelStart = Arrays.copyOf(nodes.labelStart, count);
+        labelEnd = Arrays.copyOf(nodes.labelEnd, count);
+        firstChar = Arrays.copyOf(nodes.firstChar, count);
+        firstChild = Arrays.copyOf(nodes.firstChild, count);
+        childCount = Arrays.copyOf(nodes.childCount, count);
+        completionStart = Arrays.copyOf(nodes.completionStart, count);
+        completionCount = Arrays.copyOf(nodes.completionCount, count);
+        completions = nodes.completions.toArray();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return texts.length;
+    }
+
+    public int nodeCount() {
+        return labelStart.length;
+    }
+
+    /**
+     * @return the node whose subtree holds every key starting with the folded prefix, or -1 if none does
+     */
+    public int find(String prefix) {
+        if (texts.length == 0) {
+            return -1;
+        }
+        int length = prefix.length();
+        int node = ROOT;
+        int i = 0;
+        while (true) {
+            for (int j = labelStart[node], end = labelEnd[node]; j < end; j++, i++) {
+                if (i == length) {
+                    return node;
+                }
+                if (keyChar(j) != prefix.charAt(i)) {
+                    return -1;
+                }
+            }
+            if (i == length) {
+                return node;
+            }
+            node = child(node, prefix.charAt(i));
+            if (node < 0) {
+                return -1;
+            }
+        }
+    }
+
+    public int completionCount(int node) {
+        return completionCount[node];
+    }
+
+    /**
+     * @return the entry at {@code rank} among the node's precomputed completions, best first
+     */
+    public int completion(int node, int rank) {
+        return completions[completionStart[node] + rank];
+    }
+
+    public BookSuggestionDTO suggestion(int entry) {
+        return new BookSuggestionDTO(TYPES[types[entry]], texts[entry], bookIds[entry]);
+    }
+
+    public List<BookSuggestionDTO> suggest(String query, int limit) {
+        // A query of separators only folds to nothing, which would match every key
+        String prefix = prefixKey(query);
+        int node = prefix.isEmpty() ? -1 : find(prefix);
+        if (node < 0) {
+            return List.of();
+        }
+        int count = Math.min(limit, completionCount(node));
+        BookSuggestionDTO[] suggestions = new BookSuggestionDTO[count];
+        for (int i = 0; i < count; i++) {
+            suggestions[i] = suggestion(completion(node, i));
+        }
+        return Arrays.asList(suggestions);
+    }
+
+    /**
+     * Rough heap footprint of the trie, for sizing. Display texts and book ids are not counted,
+     * as the application shares them with the search index.
+     */
+    public long estimatedBytes() {
+        return 4L * (labelStart.length + labelEnd.length + firstChild.length + completionStart.length
+                + completions.length + keyStart.length + texts.length + bookIds.length)
+                + 2L * (firstChar.length + childCount.length) + completionCount.length + types.length
+                + (latin1Keys != null ? latin1Keys.length : 2L * utf16Keys.length);
+    }
+
+    /**
+     * Folds a typed prefix like a key. A trailing separator is kept as a space, so {@code "go "} no longer
+     * completes to {@code "gophers"}.
+     */
+    static String prefixKey(String query) {
+        String key = String.join(" ", SearchText.tokens(query));
+        if (!key.isEmpty() && !Character.isLetterOrDigit(query.charAt(query.length() - 1))) {
+            return key + " ";
+        }
+        return key;
+    }
+
+    private int child(int node, char c) {
+        int low = firstChild[node];
+        int high = low + childCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (firstChar[mid] < c) {
+                low = mid + 1;
+            } else if (firstChar[mid] > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private char keyChar(int position) {
+        return latin1Keys != null ? (char) (latin1Keys[position] & 0xFF) : utf16Keys[position];
+    }
+
+    private final class Nodes {
+        private final String[] keys;
+        private final int[] labelStart;
+        private final int[] labelEnd;
+        private final char[] firstChar;
+        private final int[] firstChild;
+        private final char[] childCount;
+        private final int[] completionStart;
+        private final byte[] completionCount;
+        private final IntBuffer completions = new IntBuffer();
+        private final int[] rank;
+        private final Integer[] byRank;
+        private int count;
+
+        Nodes(String[] keys, int capacity, int[] rank, Integer[] byRank) {
+            this.keys = keys;
+            labelStart = new int[capacity];
+            labelEnd = new int[capacity];
+            firstChar = new char[capacity];
+            firstChild = new int[capacity];
+            childCount = new char[capacity];
+            completionStart = new int[capacity];
+            completionCount = new byte[capacity];
+            this.rank = rank;
+            this.byRank = byRank;
+        }
+
+        /**
+         * Fills the node for the sorted keys [lo, hi), which share their first {@code depth} characters.
+         * The node's label runs to the end of their common prefix; children are allocated as one block
+         * before recursing, and the node's completions are merged from its own entries and its children's.
+         */
+        void fill(int node, int lo, int hi, int depth) {
+            int end = commonPrefix(keys[lo], keys[hi - 1], depth);
+            labelStart[node] = keyStart[lo] + depth;
+            labelEnd[node] = keyStart[lo] + end;
+            firstChar[node] = end > depth ? keys[lo].charAt(depth) : 0;
+
+            int branchFrom = lo;
+            while (branchFrom < hi && keys[branchFrom].length() == end) {
+                branchFrom++;
+            }
+            int children = 0;
+            for (int i = branchFrom; i < hi; i++) {
+                if (i == branchFrom || keys[i].charAt(end) != keys[i - 1].charAt(end)) {
+                    children++;
+                }
+            }
+            int first = count;
+            count += children;
+            firstChild[node] = first;
+            childCount[node] = (char) children;
+
+            int child = first;
+            for (int from = branchFrom; from < hi; child++) {
+                int to = from + 1;
+                while (to < hi && keys[to].charAt(end) == keys[from].charAt(end)) {
+                    to++;
+                }
+                fill(child, from, to, end);
+                from = to;
+            }
+            merge(node, lo, branchFrom, first, children);
+        }
+
+        private void merge(int node, int lo, int branchFrom, int first, int children) {
+            int candidates = branchFrom - lo;
+            for (int child = first; child < first + children; child++) {
+                candidates += completionCount[child];
+            }
+            int[] ranks = new int[candidates];
+            int n = 0;
+            for (int entry = lo; entry < branchFrom; entry++) {
+                ranks[n++] = rank[entry];
+            }
+            for (int child = first; child < first + children; child++) {
+                for (int i = 0; i < completionCount[child]; i++) {
+                    ranks[n++] = rank[completions.get(completionStart[child] + i)];
+                }
+            }
+            Arrays.sort(ranks);
+            int kept = Math.min(MAX_COMPLETIONS, ranks.length);
+            completionStart[node] = completions.size();
+            completionCount[node] = (byte) kept;
+            for (int i = 0; i < kept; i++) {
+                completions.add(byRank[ranks[i]]);
+            }
+        }
+
+        private static int commonPrefix(String first, String last, int from) {
+            int max = Math.min(first.length(), last.length());
+            int i = from;
+            while (i < max && first.charAt(i) == last.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    private static final class Entry {
+        private final BookSuggestionDTO.Type type;
+        private final String text;
+        private final String key;
+        private final UUID bookId;
+        private long weight;
+
+        Entry(BookSuggestionDTO.Type type, String text, String key, UUID bookId, long weight) {
+            this.type = type;
+            this.text = text;
+            this.key = key;
+            this.bookId = bookId;
+            this.weight = weight;
+        }
+
+        String key() {
+            return key;
+        }
+    }
+
+    public static final class Builder {
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<String, Entry> authors = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a book's title, and its author unless already present; an author's weight is the sum
+         * of the weights of their books.
+         */
+        public Builder add(UUID bookId, String title, String author, int copies) {
+            String titleKey = key(title);
+            if (!titleKey.isEmpty()) {
+                entries.add(new Entry(BookSuggestionDTO.Type.TITLE, title, titleKey, bookId, copies));
+            }
+            String authorKey = key(author);
+            if (!authorKey.isEmpty()) {
+                Entry known = authors.get(authorKey);
+                if (known == null) {
+                    Entry entry = new Entry(BookSuggestionDTO.Type.AUTHOR, author, authorKey, null, copies);
+                    authors.put(authorKey, entry);
+                    entries.add(entry);
+                } else {
+                    known.weight += copies;
+                }
+            }
+            return this;
+        }
+
+        public BookSuggestionTrie build() {
+            return new BookSuggestionTrie(new ArrayList<>(entries));
+        }
+
+        private static String key(String text) {
+            return String.join(" ", SearchText.tokens(text));
+        }
+    }
+
+    private static final class IntBuffer {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
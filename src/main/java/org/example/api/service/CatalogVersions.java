@@ -0,0 +1,62 @@
+package org.example.api.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic catalog versions used as strong ETags. A book's version is the global version
+ * at its last committed change, so it only ever grows. The epoch keeps tags issued before
+ * a restart from matching the counters of the new process.
+ * Cached book details are keyed by the book's version too, see {@link #bookDetailsKey(UUID)}.
+ */
+@Component
+public class CatalogVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Map<UUID, Long> bookVersions = new ConcurrentHashMap<>();
+
+    public long catalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public long bookVersion(UUID bookId) {
+        return bookVersions.getOrDefault(bookId, 0L);
+    }
+
+    public void bump(UUID bookId) {
+        long version = catalogVersion.incrementAndGet();
+        bookVersions.merge(bookId, version, Math::max);
+    }
+
+    /**
+     * Moves the catalog to a new version without changing any book's, for changes made behind the
+     * application's back, such as books added with plain SQL.
+     */
+    public void bumpCatalog() {
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * Cache key of a book's details at its current version. The version is read before the details are
+     * loaded, and it is bumped only after a change commits, so details stored under a key are never older
+     * than its version: a load that raced with a change lands under the previous key and is never read again.
+     */
+    public BookDetailsKey bookDetailsKey(UUID bookId) {
+        return new BookDetailsKey(bookId, bookVersion(bookId));
+    }
+
+    public String catalogETag() {
+        return "\"c-" + epoch + "-" + catalogVersion() + "\"";
+    }
+
+    public String bookETag(UUID bookId) {
+        return "\"b-" + epoch + "-" + bookVersion(bookId) + "\"";
+    }
+
+    public record BookDetailsKey(UUID bookId, long version) {
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.LibraryBorrowProperties;
+import org.example.api.dto.LockStripeStatsDTO;
+import org.example.api.exception.ConflictException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Fair in-process locks striped by inventory id. Requests for a busy copy wait here, in arrival order,
+ * instead of each holding a pooled connection while blocked on the row lock; a request that cannot get
+ * the lock in time fails with 409 before touching the database.
+ */
+@Component
+@Slf4j
+public class InventoryLocks {
+    private final Stripe[] stripes;
+    private final Duration timeout;
+    private final LoanMetrics loanMetrics;
+
+    public InventoryLocks(LibraryBorrowProperties properties, LoanMetrics loanMetrics) {
+        LibraryBorrowProperties.Lock lock = properties.lock();
+        this.stripes = IntStream.range(0, lock.stripes()).mapToObj(i -> new Stripe()).toArray(Stripe[]::new);
+        this.timeout = lock.timeout();
+        this.loanMetrics = loanMetrics;
+    }
+
+    public <T> T withLock(UUID inventoryId, Supplier<T> action) {
+        int index = Math.floorMod(inventoryId.hashCode(), stripes.length);
+        Stripe stripe = stripes[index];
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = stripe.lock.tryLock(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        long waitNanos = System.nanoTime() - start;
+        stripe.recordWait(waitNanos, acquired);
+        loanMetrics.lockWait(acquired).record(waitNanos, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            log.warn("Inventory lock not acquired within {} - inventoryId: {}, stripe: {}", timeout, inventoryId, index);
+            throw new ConflictException("The copy is busy. Please try again later.");
+        }
+        try {
+            return action.get();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Counters for stripes that have been used or have waiters; idle stripes are left out.
+     */
+    public List<LockStripeStatsDTO> getStats() {
+        return IntStream.range(0, stripes.length)
+                .filter(i -> stripes[i].isActive())
+                .mapToObj(i -> stripes[i].toStatsDTO(i))
+                .toList();
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+        void recordWait(long waitNanos, boolean acquired) {
+            (acquired ? acquisitions : timeouts).increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulate(waitNanos);
+        }
+
+        boolean isActive() {
+            return lock.isLocked() || lock.hasQueuedThreads() || acquisitions.sum() > 0 || timeouts.sum() > 0;
+        }
+
+        LockStripeStatsDTO toStatsDTO(int index) {
+            long attempts = acquisitions.sum() + timeouts.sum();
+            double averageWaitNanos = attempts == 0 ? 0 : totalWaitNanos.sum() / (double) attempts;
+            return new LockStripeStatsDTO(index, lock.isLocked(), lock.getQueueLength(), acquisitions.sum(),
+                    timeouts.sum(), averageWaitNanos / 1_000_000.0, maxWaitNanos.get() / 1_000_000.0);
+        }
+    }
+}
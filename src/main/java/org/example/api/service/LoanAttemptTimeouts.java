@@ -0,0 +1,54 @@
+package org.example.api.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the statements of a loan attempt by the time left before its retry deadline. The
+ * {@link LoanRetryExecutor} runs each attempt {@link #within} its deadline, and a transaction begun by
+ * the attempt gets the time left as its timeout, so an attempt blocked on a row lock fails near the
+ * deadline instead of waiting for the lock for as long as it is held.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanAttemptTimeouts implements TransactionExecutionListener {
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Runs an attempt on the current thread with the given {@link System#nanoTime()} deadline.
+     */
+    static <T> T within(long deadline, Supplier<T> attempt) {
+        DEADLINE.set(deadline);
+        try {
+            return attempt.get();
+        } finally {
+            DEADLINE.remove();
+        }
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        Long deadline = DEADLINE.get();
+        if (deadline == null || beginFailure != null || !transaction.isNewTransaction()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.getResource(entityManagerFactory) instanceof EntityManagerHolder holder) {
+            // What @Transactional(timeout) sets up when the transaction begins: every statement Hibernate
+            // prepares gets the remaining whole seconds as its query timeout, and none is prepared after expiry
+            long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(deadline - System.nanoTime() + 999_999_999L));
+            holder.getEntityManager().unwrap(SessionImplementor.class).getJdbcCoordinator()
+                    .setTransactionTimeOut((int) seconds);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.api.exception.ConflictException;
+import org.example.api.exception.ResourceNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Meters for loan writes. Every tag combination is registered up front, so recording is a map
+ * lookup plus an increment and the series exist on the scrape endpoint before the first loan.
+ */
+@Component
+public class LoanMetrics {
+    public enum Operation {
+        BORROW("borrow"), RETURN("return"), BORROW_ANY("borrow-any"),
+        BATCH_BORROW("batch-borrow"), BATCH_RETURN("batch-return");
+
+        private final String tag;
+
+        Operation(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    public enum Outcome {
+        SUCCESS, CONFLICT, NOT_FOUND,
+        /** Retries ran out on a technical failure and the recover method answered with a 409. */
+        RECOVERED_FAILURE;
+
+        public static Outcome of(Throwable failure) {
+            if (failure == null) {
+                return SUCCESS;
+            }
+            if (failure instanceof ConflictException) {
+                return CONFLICT;
+            }
+            if (failure instanceof ResourceNotFoundException) {
+                return NOT_FOUND;
+            }
+            return RECOVERED_FAILURE;
+        }
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final Map<Operation, Map<Outcome, Timer>> operationTimers = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> retries;
+    private final Map<Operation, Counter> recoveries;
+    private final Timer lockQuery;
+    private final Timer lockAcquired;
+    private final Timer lockTimedOut;
+
+    public LoanMetrics(MeterRegistry registry) {
+        for (Operation operation : Operation.values()) {
+            Map<Outcome, Timer> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, Timer.builder("library.loan.operations")
+                        .description("Borrow and return operations, including retries and recovery")
+                        .tag("operation", operation.tag())
+                        .tag("outcome", outcome.tag())
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            operationTimers.put(operation, byOutcome);
+        }
+        this.retries = perOperation(operation -> Counter.builder("library.loan.retries")
+                .description("Attempts scheduled after a transient failure")
+                .tag("operation", operation.tag())
+                .register(registry));
+        this.recoveries = perOperation(operation -> Counter.builder("library.loan.recoveries")
+                .description("Recover method invocations after retries were exhausted")
+                .tag("operation", operation.tag())
+                .register(registry));
+        this.lockQuery = Timer.builder("library.inventory.lock.query")
+                .description("Time spent in SELECT ... FOR UPDATE on a copy")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.lockAcquired = lockWait(registry, "acquired");
+        this.lockTimedOut = lockWait(registry, "timeout");
+    }
+
+    public Timer operationTimer(Operation operation, Outcome outcome) {
+        return operationTimers.get(operation).get(outcome);
+    }
+
+    public void recordRetry(Operation operation) {
+        retries.get(operation).increment();
+    }
+
+    public void recordRecovery(Operation operation) {
+        recoveries.get(operation).increment();
+    }
+
+    public Timer lockQuery() {
+        return lockQuery;
+    }
+
+    public Timer lockWait(boolean acquired) {
+        return acquired ? lockAcquired : lockTimedOut;
+    }
+
+    private static Timer lockWait(MeterRegistry registry, String outcome) {
+        return Timer.builder("library.inventory.lock.wait")
+                .description("Time spent waiting for a copy's in-process lock")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Map<Operation, Counter> perOperation(Function<Operation, Counter> counter) {
+        return Arrays.stream(Operation.values())
+                .collect(Collectors.toMap(Function.identity(), counter, (a, b) -> a,
+                        () -> new EnumMap<>(Operation.class)));
+    }
+}
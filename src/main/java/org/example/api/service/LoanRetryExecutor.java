@@ -0,0 +1,96 @@
+package org.example.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.LibraryBorrowProperties;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs an operation and retries transient database failures on a timer instead of sleeping:
+ * the first attempt runs on the caller's thread, later ones on the application task executor
+ * once their backoff has elapsed, so no thread is held while waiting. Each attempt runs
+ * {@link LoanAttemptTimeouts#within} the deadline, so its statements time out when it passes.
+ */
+@Component
+@Slf4j
+public class LoanRetryExecutor {
+    // serialization_failure, deadlock_detected, lock_not_available
+    private static final Set<String> RETRYABLE_SQL_STATES = Set.of("40001", "40P01", "55P03");
+
+    private final LibraryBorrowProperties.Retry retry;
+    private final Executor executor;
+    private final LoanMetrics loanMetrics;
+
+    public LoanRetryExecutor(LibraryBorrowProperties properties,
+                             @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                             Executor executor,
+                             LoanMetrics loanMetrics) {
+        this.retry = properties.retry();
+        this.executor = executor;
+        this.loanMetrics = loanMetrics;
+    }
+
+    public <T> CompletableFuture<T> execute(LoanMetrics.Operation operation, Supplier<T> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(operation, action, 1, System.nanoTime() + retry.deadline().toNanos(), result);
+        return result;
+    }
+
+    private <T> void attempt(LoanMetrics.Operation operation, Supplier<T> action, int attempt, long deadline,
+                             CompletableFuture<T> result) {
+        try {
+            result.complete(LoanAttemptTimeouts.within(deadline, action));
+        } catch (RuntimeException e) {
+            long delay = backoff(attempt).toNanos();
+            if (!isRetryable(e) || attempt >= retry.maxAttempts() || System.nanoTime() + delay > deadline) {
+                result.completeExceptionally(e);
+                return;
+            }
+            loanMetrics.recordRetry(operation);
+            log.debug("Retrying {} after transient failure - attempt: {}, delay: {} ms, cause: {}",
+                    operation.tag(), attempt + 1, TimeUnit.NANOSECONDS.toMillis(delay), e.toString());
+            try {
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, executor)
+                        .execute(() -> attempt(operation, action, attempt + 1, deadline, result));
+            } catch (RuntimeException rejected) {
+                e.addSuppressed(rejected);
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    Duration backoff(int attempt) {
+        double base = Math.min(retry.initialDelay().toMillis() * Math.pow(retry.multiplier(), attempt - 1),
+                retry.maxDelay().toMillis());
+        double jittered = base * (1 + ThreadLocalRandom.current().nextDouble() * (retry.multiplier() - 1));
+        return Duration.ofMillis((long) Math.min(jittered, retry.maxDelay().toMillis()));
+    }
+
+    /**
+     * Lock timeouts, deadlocks and serialization failures are worth another attempt; constraint
+     * violations and other permanent errors fail at once.
+     */
+    static boolean isRetryable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                    && RETRYABLE_SQL_STATES.contains(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
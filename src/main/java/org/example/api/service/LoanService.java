@@ -0,0 +1,105 @@
+package org.example.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.api.dto.BatchLoanRequest;
+import org.example.api.dto.BorrowAnyRequest;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.InventoryDTO;
+import org.example.api.dto.LoanItemResultDTO;
+import org.example.api.dto.ReturnRequest;
+import org.example.api.service.LoanMetrics.Operation;
+import org.example.api.service.LoanMetrics.Outcome;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Entry point for loan writes: each {@link BookService} transaction is run through the
+ * {@link LoanRetryExecutor} and a final failure is handed to the matching recover method.
+ * Single-copy borrows and returns also take the copy's {@link InventoryLocks} stripe first.
+ * The whole operation, retries included, is timed per outcome in {@link LoanMetrics}.
+ */
+@Service
+@RequiredArgsConstructor
+public class LoanService {
+    private final BookService bookService;
+    private final LoanRetryExecutor retryExecutor;
+    private final InventoryLocks inventoryLocks;
+    private final LoanMetrics loanMetrics;
+
+    public CompletableFuture<Void> borrowBook(BorrowRequest request) {
+        return run(Operation.BORROW, () -> inventoryLocks.withLock(request.inventoryId(), () -> {
+            bookService.borrowBook(request);
+            return null;
+        }), e -> {
+            bookService.recoverBorrowOperation(e, request);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> returnBook(ReturnRequest request) {
+        return run(Operation.RETURN, () -> inventoryLocks.withLock(request.inventoryId(), () -> {
+            bookService.returnBook(request);
+            return null;
+        }), e -> {
+            bookService.recoverReturnOperation(e, request);
+            return null;
+        });
+    }
+
+    public CompletableFuture<InventoryDTO> borrowAnyCopy(BorrowAnyRequest request) {
+        return run(Operation.BORROW_ANY, () -> bookService.borrowAnyCopy(request),
+                e -> bookService.recoverBorrowAnyOperation(e, request));
+    }
+
+    public CompletableFuture<List<LoanItemResultDTO>> borrowBooks(BatchLoanRequest request) {
+        return run(Operation.BATCH_BORROW, () -> bookService.borrowBooks(request),
+                e -> bookService.recoverBatchOperation(e, request));
+    }
+
+    public CompletableFuture<List<LoanItemResultDTO>> returnBooks(BatchLoanRequest request) {
+        return run(Operation.BATCH_RETURN, () -> bookService.returnBooks(request),
+                e -> bookService.recoverBatchOperation(e, request));
+    }
+
+    private <T> CompletableFuture<T> run(Operation operation, Supplier<T> action, Recovery<T> recovery) {
+        long start = System.nanoTime();
+        return retryExecutor.execute(operation, action)
+                .handle((result, failure) -> {
+                    Throwable cause = unwrap(failure);
+                    loanMetrics.operationTimer(operation, Outcome.of(cause))
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return cause == null
+                            ? CompletableFuture.completedFuture(result)
+                            : recover(operation, cause, recovery);
+                })
+                .thenCompose(future -> future);
+    }
+
+    private <T> CompletableFuture<T> recover(Operation operation, Throwable cause, Recovery<T> recovery) {
+        if (!(cause instanceof Exception exception)) {
+            return CompletableFuture.failedFuture(cause);
+        }
+        if (Outcome.of(cause) == Outcome.RECOVERED_FAILURE) {
+            loanMetrics.recordRecovery(operation);
+        }
+        try {
+            return CompletableFuture.completedFuture(recovery.recover(exception));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    @FunctionalInterface
+    private interface Recovery<T> {
+        T recover(Exception e) throws Exception;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.api.service;
+
+import org.example.api.exception.BadRequestException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset cursor: the id of the last row of a page, encoded as URL-safe base64.
+ * Ranked results have no stable key, so their cursor is the offset of the next page instead.
+ */
+public final class PageCursor {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private PageCursor() {
+    }
+
+    public static String encode(UUID lastId) {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.putLong(lastId.getMostSignificantBits());
+        buffer.putLong(lastId.getLeastSignificantBits());
+        return ENCODER.encodeToString(buffer.array());
+    }
+
+    public static UUID decode(String cursor) {
+        ByteBuffer buffer = ByteBuffer.wrap(decodeBytes(cursor, 16));
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    public static String encodeOffset(int offset) {
+        return ENCODER.encodeToString(ByteBuffer.allocate(4).putInt(offset).array());
+    }
+
+    public static int decodeOffset(String cursor) {
+        int offset = ByteBuffer.wrap(decodeBytes(cursor, 4)).getInt();
+        if (offset < 0) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return offset;
+    }
+
+    private static byte[] decodeBytes(String cursor, int length) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        if (bytes.length != length) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.LibraryAuthProperties;
+import org.example.api.exception.ServiceUnavailableException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks passwords against stored hashes on a small bounded pool, so slow hashing never runs on a request
+ * thread. Successful checks are remembered for a short time under an HMAC of the credentials and the stored
+ * hash; the HMAC key is random per process and the raw password is never kept.
+ */
+@Component
+@Slf4j
+public class PasswordVerifier {
+    private static final String HMAC = "HmacSHA256";
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Cache<String, Boolean> verified;
+    private final SecretKeySpec digestKey;
+    // Unknown usernames are checked against this so they take as long as a wrong password
+    private final String dummyHash;
+
+    public PasswordVerifier(PasswordEncoder passwordEncoder, LibraryAuthProperties properties) {
+        this.passwordEncoder = passwordEncoder;
+        LibraryAuthProperties.Hashing hashing = properties.hashing();
+        this.executor = new ThreadPoolExecutor(hashing.threads(), hashing.threads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashing.queueCapacity()), Thread.ofPlatform().name("password-hash-", 0).factory());
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(properties.verified().maximumSize())
+                .expireAfterWrite(properties.verified().ttl())
+                .build();
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.digestKey = new SecretKeySpec(key, HMAC);
+        this.dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Verifies {@code rawPassword} against {@code storedHash}, which is {@code null} for an unknown user.
+     * The result carries a fresh hash when the stored one uses an outdated scheme or strength.
+     *
+     * @throws ServiceUnavailableException when the verification queue is full
+     */
+    public CompletableFuture<Verification> verify(String username, String rawPassword, String storedHash) {
+        if (storedHash != null && verified.getIfPresent(digest(username, rawPassword, storedHash)) != null) {
+            return CompletableFuture.completedFuture(Verification.MATCHED);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> check(username, rawPassword, storedHash), executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password verification queue is full - username: {}", username);
+            throw new ServiceUnavailableException("Too many login attempts in progress. Please try again later.",
+                    RETRY_AFTER);
+        }
+    }
+
+    private Verification check(String username, String rawPassword, String storedHash) {
+        if (storedHash == null) {
+            passwordEncoder.matches(rawPassword, dummyHash);
+            return Verification.REJECTED;
+        }
+        if (!passwordEncoder.matches(rawPassword, storedHash)) {
+            return Verification.REJECTED;
+        }
+        if (passwordEncoder.upgradeEncoding(storedHash)) {
+            String upgradedHash = passwordEncoder.encode(rawPassword);
+            verified.put(digest(username, rawPassword, upgradedHash), Boolean.TRUE);
+            return new Verification(true, upgradedHash);
+        }
+        verified.put(digest(username, rawPassword, storedHash), Boolean.TRUE);
+        return Verification.MATCHED;
+    }
+
+    private String digest(String username, String rawPassword, String storedHash) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(digestKey);
+            for (String part : new String[]{username, rawPassword, storedHash}) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                // Length-prefixed so ("ab", "c") and ("a", "bc") never collide
+                mac.update(new byte[]{(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                        (byte) (bytes.length >>> 8), (byte) bytes.length});
+                mac.update(bytes);
+            }
+            return Base64.getEncoder().encodeToString(mac.doFinal());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param upgradedHash replacement for the stored hash, or {@code null} when it is current
+     */
+    public record Verification(boolean matches, String upgradedHash) {
+        static final Verification MATCHED = new Verification(true, null);
+        static final Verification REJECTED = new Verification(false, null);
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.LibraryAuthProperties;
+import org.example.api.repository.UserIdentity;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Issues and checks session tokens of the form {@code keyId.payload.signature}. The payload carries the
+ * user's id, role, username and expiry, and the signature is an HMAC-SHA256 over the key id and payload,
+ * so a token is verified from memory without touching the user table.
+ */
+@Component
+@Slf4j
+public class SessionTokens {
+    private static final String HMAC = "HmacSHA256";
+    private static final String GENERATED_KEY = "generated";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Duration ttl;
+    private final String activeKey;
+    private final Map<String, SecretKeySpec> keys;
+
+    public SessionTokens(LibraryAuthProperties properties) {
+        LibraryAuthProperties.Tokens tokens = properties.tokens();
+        this.ttl = tokens.ttl();
+        if (tokens.keys() == null || tokens.keys().isEmpty()) {
+            log.warn("No session token keys configured; tokens will not survive a restart");
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            this.activeKey = GENERATED_KEY;
+            this.keys = Map.of(GENERATED_KEY, new SecretKeySpec(secret, HMAC));
+        } else {
+            this.activeKey = tokens.activeKey();
+            this.keys = tokens.keys().entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey,
+                            entry -> new SecretKeySpec(Base64.getDecoder().decode(entry.getValue()), HMAC)));
+            if (!keys.containsKey(activeKey)) {
+                throw new IllegalStateException("Active session token key is not configured: " + activeKey);
+            }
+        }
+    }
+
+    public Issued issue(UserIdentity identity) {
+        Instant expiresAt = Instant.now().plus(ttl);
+        String claims = identity.id() + "|" + identity.role() + "|" + expiresAt.getEpochSecond() + "|" + identity.username();
+        String signed = activeKey + "." + ENCODER.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        return new Issued(signed + "." + ENCODER.encodeToString(sign(keys.get(activeKey), signed)), expiresAt);
+    }
+
+    /**
+     * @return the identity in the token, or empty if it is malformed, expired or not signed by a known key
+     */
+    public Optional<UserIdentity> verify(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3 || !keys.containsKey(parts[0])) {
+            return Optional.empty();
+        }
+        try {
+            byte[] expected = sign(keys.get(parts[0]), parts[0] + "." + parts[1]);
+            if (!MessageDigest.isEqual(expected, DECODER.decode(parts[2]))) {
+                return Optional.empty();
+            }
+            String[] claims = new String(DECODER.decode(parts[1]), StandardCharsets.UTF_8).split("\\|", 4);
+            if (Instant.now().getEpochSecond() >= Long.parseLong(claims[2])) {
+                return Optional.empty();
+            }
+            return Optional.of(new UserIdentity(UUID.fromString(claims[0]), claims[3], claims[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] sign(SecretKeySpec key, String content) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            return mac.doFinal(content.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    public record Issued(String token, Instant expiresAt) {
+    }
+}
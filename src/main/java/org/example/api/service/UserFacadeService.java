@@ -1,32 +1,39 @@
 package org.example.api.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.api.dto.LoginDTO;
 import org.example.api.dto.LoginRequest;
 import org.example.api.dto.UserDTO;
-import org.example.api.entity.User;
 import org.example.api.mapper.LibraryMapper;
+import org.example.api.repository.UserIdentity;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class UserFacadeService {
     private final LibraryMapper libraryMapper;
     private final UserService userService;
+    private final SessionTokens sessionTokens;
 
-    public UserDTO login(LoginRequest loginRequest) {
-        User user = userService.validateCredentials(
+    public CompletableFuture<LoginDTO> login(LoginRequest loginRequest) {
+        return userService.validateCredentials(
                 loginRequest.username(),
                 loginRequest.password()
-        );
-
-        return libraryMapper.toUserDTO(user);
+        ).thenApply(user -> {
+            // Runs where validateCredentials completes, on the application task executor
+            UserIdentity identity = new UserIdentity(user.getId(), user.getUsername(), user.getRole());
+            SessionTokens.Issued session = sessionTokens.issue(identity);
+            return new LoginDTO(libraryMapper.toUserDTO(identity, userService.getLoans(user.getId())),
+                    session.token(), session.expiresAt());
+        });
     }
 
     public UserDTO getUserById(UUID id) {
-        User user = userService.getUserById(id);
+        UserIdentity identity = userService.getUserIdentity(id);
 
-        return libraryMapper.toUserDTO(user);
+        return libraryMapper.toUserDTO(identity, userService.getLoans(id));
     }
 }
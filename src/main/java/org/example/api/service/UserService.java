@@ -1,22 +1,44 @@
 package org.example.api.service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.api.config.CacheConfig;
+import org.example.api.entity.Inventory;
 import org.example.api.entity.User;
 import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.repository.InventoryRepository;
+import org.example.api.repository.UserIdentity;
 import org.example.api.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 @Slf4j
-// TODO: Consider adding caching for frequently accessed user data
 public class UserService {
     private final UserRepository userRepository;
+    private final InventoryRepository inventoryRepository;
+    private final PasswordVerifier passwordVerifier;
+    private final Executor executor;
+
+    public UserService(UserRepository userRepository, InventoryRepository inventoryRepository,
+                       PasswordVerifier passwordVerifier,
+                       @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                       Executor executor) {
+        this.userRepository = userRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.passwordVerifier = passwordVerifier;
+        this.executor = executor;
+    }
 
     public User getUserById(UUID userId) {
         log.debug("Fetching user with id: {}", userId);
@@ -27,18 +49,65 @@ public class UserService {
                 });
     }
 
-    public User validateCredentials(String username, String password) {
-        log.debug("Validating credentials for user: {}", username);
-        return userRepository.findByUsername(username)
-                .filter(user -> passwordMatches(password, user.getPassword()))
+    @Cacheable(cacheNames = CacheConfig.USER_IDENTITIES, key = "#userId")
+    public UserIdentity getUserIdentity(UUID userId) {
+        log.debug("Fetching identity of user with id: {}", userId);
+        return userRepository.findIdentityById(userId)
                 .orElseThrow(() -> {
-                    log.warn("Invalid login attempt for user: {}", username);
-                    return new ResourceNotFoundException("The user is not found with given username and password");
+                    log.error("User not found with id: {}", userId);
+                    return new ResourceNotFoundException("The user is not found with id: " + userId);
                 });
     }
 
-    private boolean passwordMatches(String rawPassword, String storedPassword) {
-        // TODO: Replace with proper password hashing
-        return storedPassword.equals(rawPassword);
+    @CacheEvict(cacheNames = CacheConfig.USER_IDENTITIES, key = "#userId")
+    public void evictUserIdentity(UUID userId) {
+        log.debug("Evicting cached identity of user with id: {}", userId);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.USER_IDENTITIES, allEntries = true)
+    public void evictAllUserIdentities() {
+        log.debug("Evicting all cached user identities");
+    }
+
+    public User getUserReference(UUID userId) {
+        return userRepository.getReferenceById(userId);
+    }
+
+    public List<Inventory> getLoans(UUID userId) {
+        log.debug("Fetching loans of user with id: {}", userId);
+        return inventoryRepository.findByUserId(userId);
+    }
+
+    /**
+     * Looks the user up on the calling thread and verifies the password on the {@link PasswordVerifier}
+     * pool. A stored hash in an outdated format is replaced once the password has been verified.
+     * The result is handled on the application task executor, so the upgrade and any database work
+     * chained onto the returned future never hold a hashing thread.
+     */
+    public CompletableFuture<User> validateCredentials(String username, String password) {
+        log.debug("Validating credentials for user: {}", username);
+        Optional<User> user = userRepository.findByUsername(username);
+        return passwordVerifier.verify(username, password, user.map(User::getPassword).orElse(null))
+                .thenApplyAsync(verification -> {
+                    if (!verification.matches()) {
+                        log.warn("Invalid login attempt for user: {}", username);
+                        throw new ResourceNotFoundException("The user is not found with given username and password");
+                    }
+                    if (verification.upgradedHash() != null) {
+                        upgradePassword(user.get(), verification.upgradedHash());
+                    }
+                    return user.get();
+                }, executor);
+    }
+
+    private void upgradePassword(User user, String upgradedHash) {
+        try {
+            if (userRepository.updatePassword(user.getId(), user.getPassword(), upgradedHash) == 1) {
+                log.info("Upgraded password hash for user: {}", user.getUsername());
+            }
+        } catch (RuntimeException e) {
+            // The old hash still verifies, so the upgrade is retried on the next login
+            log.warn("Failed to upgrade password hash for user: {}", user.getUsername(), e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,13 @@
+--liquibase formatted sql
+
+--changeset application:3
+CREATE INDEX IF NOT EXISTS idx_inventory_book_id ON inventory(book_id);
+CREATE INDEX IF NOT EXISTS idx_inventory_user_id ON inventory(user_id);
+
+--changeset application:4 dbms:postgresql
+-- Free copies of a book in id order, as read by borrow-any
+CREATE INDEX IF NOT EXISTS idx_inventory_free_copies ON inventory(book_id, id) WHERE user_id IS NULL;
+
+--changeset application:5
+ALTER TABLE book ADD COLUMN available_copies integer NOT NULL DEFAULT 0;
+UPDATE book SET available_copies = (SELECT COUNT(*) FROM inventory i WHERE i.book_id = book.id AND i.user_id IS NULL);
@@ -0,0 +1,284 @@
+package org.example.api;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.api.dto.LockStripeStatsDTO;
+import org.example.api.service.InventoryLocks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load harness for the loan endpoints. Boots the application on H2 in PostgreSQL mode with the Liquibase
+ * schema, adds copies and readers, then drives a mix of borrows, returns and catalog reads from many
+ * concurrent clients. Copies and books are picked with a Zipf-like skew so a few of them are hot.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dtest=LoanLoadBenchmarkTest}, tuned through system properties:
+ * {@code load.clients} (64), {@code load.seconds} (15), {@code load.warmup-seconds} (3),
+ * {@code load.mix} ("borrow=40,return=40,list=10,get=10"), {@code load.skew} (1.1, 0 for uniform),
+ * {@code load.copies} (500 extra copies) and {@code load.profiles} ("h2").
+ */
+@Tag("benchmark")
+class LoanLoadBenchmarkTest {
+    private static final int CLIENTS = Integer.getInteger("load.clients", 64);
+    private static final Duration WARM_UP = Duration.ofSeconds(Integer.getInteger("load.warmup-seconds", 3));
+    private static final Duration MEASUREMENT = Duration.ofSeconds(Integer.getInteger("load.seconds", 15));
+    private static final String MIX = System.getProperty("load.mix", "borrow=40,return=40,list=10,get=10");
+    private static final double SKEW = Double.parseDouble(System.getProperty("load.skew", "1.1"));
+    private static final int EXTRA_COPIES = Integer.getInteger("load.copies", 500);
+    private static final String PROFILES = System.getProperty("load.profiles", "h2");
+
+    private enum Operation { BORROW, RETURN, LIST, GET }
+
+    private enum Outcome { OK, CONFLICT, REJECTED, ERROR }
+
+    @Test
+    void driveLoanMixUnderContention() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookRentalApp.class)
+                .profiles(PROFILES.split(","))
+                .properties("server.port=0", "logging.level.org.example.api=OFF", "library.rate-limit.enabled=false",
+                        "library.borrow.require-session=false")
+                .run()) {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            List<UUID> books = jdbc.queryForList("SELECT id FROM book ORDER BY id", UUID.class);
+            List<UUID> readers = seedReaders(jdbc);
+            seedCopies(jdbc, books);
+            List<UUID> copies = new ArrayList<>(jdbc.queryForList("SELECT id FROM inventory ORDER BY id", UUID.class));
+            Collections.shuffle(copies, new Random(42));
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            InventoryLocks inventoryLocks = context.getBean(InventoryLocks.class);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            long retriesBefore = retryCount(meterRegistry);
+            Stats stats = load("http://localhost:" + port, readers, copies, books);
+            long retries = retryCount(meterRegistry) - retriesBefore;
+            long lockTimeouts = inventoryLocks.getStats().stream().mapToLong(LockStripeStatsDTO::timeouts).sum();
+
+            stats.print(retries, lockTimeouts);
+            assertTrue(stats.total() > 0);
+        }
+    }
+
+    // Summed over the borrow and return counters
+    private static long retryCount(MeterRegistry meterRegistry) {
+        return (long) meterRegistry.find("library.loan.retries").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private Stats load(String baseUrl, List<UUID> readers, List<UUID> copies, List<UUID> books)
+            throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        Operation[] mix = parseMix(MIX);
+        ZipfSampler copySampler = new ZipfSampler(copies.size(), SKEW);
+        ZipfSampler bookSampler = new ZipfSampler(books.size(), SKEW);
+        Stats stats = new Stats();
+
+        long start = System.nanoTime();
+        long measureFrom = start + WARM_UP.toNanos();
+        long measureUntil = measureFrom + MEASUREMENT.toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                UUID reader = readers.get(i % readers.size());
+                clients.submit(() -> {
+                    Deque<UUID> loans = new ArrayDeque<>();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < measureUntil) {
+                        Operation operation = mix[random.nextInt(mix.length)];
+                        if (operation == Operation.RETURN && loans.isEmpty()) {
+                            operation = Operation.BORROW;
+                        }
+                        UUID copy = operation == Operation.RETURN ? loans.peekFirst()
+                                : copies.get(copySampler.sample(random));
+                        HttpRequest request = switch (operation) {
+                            case BORROW -> put(baseUrl + "/books/borrow", reader, copy);
+                            case RETURN -> put(baseUrl + "/books/return", reader, copy);
+                            case LIST -> get(baseUrl + "/books");
+                            case GET -> get(baseUrl + "/books/" + books.get(bookSampler.sample(random)));
+                        };
+                        long sent = System.nanoTime();
+                        Outcome outcome = send(client, request);
+                        long finished = System.nanoTime();
+                        if (outcome == Outcome.OK && operation == Operation.BORROW) {
+                            loans.addLast(copy);
+                        } else if (operation == Operation.RETURN) {
+                            // Only this client borrowed the copy, so a failed return is tried again later
+                            UUID returned = loans.removeFirst();
+                            if (outcome != Outcome.OK) {
+                                loans.addLast(returned);
+                            }
+                        }
+                        if (sent >= measureFrom && finished <= measureUntil) {
+                            stats.record(operation, outcome, finished - sent);
+                        }
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(MEASUREMENT.toSeconds() * 4, TimeUnit.SECONDS);
+        }
+        return stats;
+    }
+
+    private static List<UUID> seedReaders(JdbcTemplate jdbc) {
+        List<UUID> readers = new ArrayList<>(CLIENTS);
+        List<Object[]> rows = new ArrayList<>(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            UUID id = UUID.randomUUID();
+            readers.add(id);
+            rows.add(new Object[]{id, "password", "USER", "load-reader-" + i});
+        }
+        jdbc.batchUpdate("INSERT INTO app_user (id, \"password\", \"role\", username) VALUES (?, ?, ?, ?)", rows);
+        return readers;
+    }
+
+    private static void seedCopies(JdbcTemplate jdbc, List<UUID> books) {
+        List<Object[]> rows = new ArrayList<>(EXTRA_COPIES);
+        for (int i = 0; i < EXTRA_COPIES; i++) {
+            rows.add(new Object[]{UUID.randomUUID(), books.get(i % books.size())});
+        }
+        jdbc.batchUpdate("INSERT INTO inventory (id, book_id) VALUES (?, ?)", rows);
+    }
+
+    private static Operation[] parseMix(String mix) {
+        List<Operation> weighted = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            Operation operation = Operation.valueOf(parts[0].trim().toUpperCase());
+            weighted.addAll(Collections.nCopies(Integer.parseInt(parts[1].trim()), operation));
+        }
+        return weighted.toArray(Operation[]::new);
+    }
+
+    private static HttpRequest put(String url, UUID userId, UUID inventoryId) {
+        String body = "{\"userId\":\"" + userId + "\",\"inventoryId\":\"" + inventoryId + "\"}";
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).build();
+    }
+
+    private static Outcome send(HttpClient client, HttpRequest request) {
+        try {
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status < 300) {
+                return Outcome.OK;
+            }
+            return switch (status) {
+                case 409 -> Outcome.CONFLICT;
+                case 429, 503 -> Outcome.REJECTED;
+                default -> Outcome.ERROR;
+            };
+        } catch (Exception e) {
+            return Outcome.ERROR;
+        }
+    }
+
+    /**
+     * Picks index k in [0, n) with probability proportional to 1 / (k + 1)^skew.
+     */
+    private static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double skew) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1 / Math.pow(k + 1, skew);
+                cumulative[k] = sum;
+            }
+        }
+
+        int sample(Random random) {
+            double target = random.nextDouble() * cumulative[cumulative.length - 1];
+            int index = Arrays.binarySearch(cumulative, target);
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+
+    private static final class Stats {
+        private final Map<Operation, List<Long>> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Map<Outcome, LongAdder>> outcomes = new EnumMap<>(Operation.class);
+
+        Stats() {
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, Collections.synchronizedList(new ArrayList<>()));
+                Map<Outcome, LongAdder> counts = new EnumMap<>(Outcome.class);
+                for (Outcome outcome : Outcome.values()) {
+                    counts.put(outcome, new LongAdder());
+                }
+                outcomes.put(operation, counts);
+            }
+        }
+
+        void record(Operation operation, Outcome outcome, long latencyNanos) {
+            latencies.get(operation).add(latencyNanos);
+            outcomes.get(operation).get(outcome).increment();
+        }
+
+        long total() {
+            return latencies.values().stream().mapToLong(List::size).sum();
+        }
+
+        void print(long retries, long lockTimeouts) {
+            System.out.printf("clients=%d, seconds=%d, mix=%s, skew=%.2f, profiles=%s%n",
+                    CLIENTS, MEASUREMENT.toSeconds(), MIX, SKEW, PROFILES);
+            System.out.printf("%-8s %9s %10s %9s %9s %9s %9s %10s %9s %8s%n", "op", "count", "req/s",
+                    "p50 ms", "p90 ms", "p99 ms", "max ms", "conflict%", "rejected", "errors");
+            for (Operation operation : Operation.values()) {
+                List<Long> sorted = latencies.get(operation).stream().sorted().toList();
+                if (sorted.isEmpty()) {
+                    continue;
+                }
+                Map<Outcome, LongAdder> counts = outcomes.get(operation);
+                System.out.printf("%-8s %9d %10.1f %9.1f %9.1f %9.1f %9.1f %9.1f%% %9d %8d%n",
+                        operation.name().toLowerCase(), sorted.size(),
+                        sorted.size() / (double) MEASUREMENT.toSeconds(),
+                        percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                        sorted.getLast() / 1_000_000.0,
+                        100.0 * counts.get(Outcome.CONFLICT).sum() / sorted.size(),
+                        counts.get(Outcome.REJECTED).sum(), counts.get(Outcome.ERROR).sum());
+            }
+            System.out.printf("total %.1f req/s, loan retries %d, inventory lock timeouts %d%n",
+                    total() / (double) MEASUREMENT.toSeconds(), retries, lockTimeouts);
+        }
+
+        private static double percentile(List<Long> sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+            return sorted.get(Math.max(0, index)) / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.api;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.api.config.SqlStats;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.ReturnRequest;
+import org.example.api.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.example.api.config.SqlStatsMatchers.maxStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the SQL budget of the main read endpoints with cold caches, so an N+1 in the mapper or the
+ * repositories fails the build instead of showing up in production. Copies lent by a test are returned
+ * after it, so the shared database is the same for every test whatever the order.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class QueryCountRegressionTest {
+    private static final UUID USER_ID = UUID.fromString("2e1273f4-f574-4807-929e-d7c002643981");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final List<UUID> lentCopies = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        entityManagerFactory.getCache().evictAll();
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @AfterEach
+    void returnLentCopies() {
+        lentCopies.forEach(copy -> bookService.returnBook(new ReturnRequest(USER_ID, copy)));
+        lentCopies.clear();
+    }
+
+    @Test
+    void getBooks_ShouldNotQueryPerBookOrBorrower() throws Exception {
+        lendCopiesOfDifferentBooks(3);
+
+        // page ids, then books joined with their copies and borrowers
+        mockMvc.perform(get("/books"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStats.ROWS_HEADER))
+                .andExpect(maxStatements(2));
+    }
+
+    @Test
+    void getUserById_ShouldNotQueryPerLoan() throws Exception {
+        lendCopiesOfDifferentBooks(3);
+        int loans = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory WHERE user_id = ?", Integer.class,
+                USER_ID);
+
+        // identity, loans with their books
+        mockMvc.perform(get("/user/{id}", USER_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inventories.length()").value(loans))
+                .andExpect(maxStatements(2));
+    }
+
+    @Test
+    void getAvailability_ShouldListBooksWithoutCopies_LikeTheSingleBookEndpoint() throws Exception {
+        UUID bookId = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        jdbcTemplate.update("INSERT INTO book(id, author, image, title) VALUES (?, ?, ?, ?)",
+                bookId, "Nobody", "none.jpg", "Out of Print");
+        try {
+            mockMvc.perform(get("/books/availability").param("limit", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items[0].bookId").value(bookId.toString()))
+                    .andExpect(jsonPath("$.items[0].totalCopies").value(0))
+                    .andExpect(jsonPath("$.items[0].availableCopies").value(0))
+                    .andExpect(maxStatements(1));
+            mockMvc.perform(get("/books/{id}/availability", bookId))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalCopies").value(0))
+                    .andExpect(jsonPath("$.availableCopies").value(0))
+                    .andExpect(maxStatements(1));
+        } finally {
+            jdbcTemplate.update("DELETE FROM book WHERE id = ?", bookId);
+        }
+    }
+
+    @Test
+    void searchBooks_ShouldNotQueryTheDatabase_AndShowCommittedLoans() throws Exception {
+        UUID bookId = UUID.fromString("50811f5f-33ad-40b4-b775-f055212bcb74");
+        String copy = jdbcTemplate.queryForObject("SELECT MIN(CAST(id AS VARCHAR)) FROM inventory "
+                + "WHERE book_id = ? AND user_id IS NULL", String.class, bookId);
+        lend(UUID.fromString(copy));
+        int available = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory "
+                + "WHERE book_id = ? AND user_id IS NULL", Integer.class, bookId);
+
+        mockMvc.perform(get("/books/search").param("q", "LEARNING go"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(bookId.toString()))
+                .andExpect(jsonPath("$.items[0].availableCopies").value(available))
+                .andExpect(maxStatements(0));
+    }
+
+    @Test
+    void suggestBooks_ShouldNotQueryTheDatabase() throws Exception {
+        mockMvc.perform(get("/books/suggest").param("q", "react c"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("React Cookbook"))
+                .andExpect(maxStatements(0));
+    }
+
+    @Test
+    void capture_ShouldCountStatementsAndRows() {
+        SqlStats stats = SqlStats.capture(() -> jdbcTemplate.queryForList("SELECT id FROM book")).stats();
+
+        assertEquals(1, stats.statements());
+        assertEquals(8, stats.rows());
+    }
+
+    private List<UUID> lendCopiesOfDifferentBooks(int count) {
+        List<UUID> copies = jdbcTemplate.queryForList("SELECT MIN(CAST(id AS VARCHAR)) FROM inventory "
+                + "WHERE user_id IS NULL GROUP BY book_id ORDER BY 1 LIMIT ?", String.class, count)
+                .stream().map(UUID::fromString).toList();
+        copies.forEach(this::lend);
+        setUp();
+        return copies;
+    }
+
+    private void lend(UUID copy) {
+        bookService.borrowBook(new BorrowRequest(USER_ID, copy));
+        lentCopies.add(copy);
+    }
+}
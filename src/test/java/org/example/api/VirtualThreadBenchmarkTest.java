@@ -0,0 +1,146 @@
+package org.example.api;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares platform and virtual request threads while many clients fight over one copy.
+ * The same Tomcat thread cap applies to both runs; only the thread model changes.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmarkTest {
+    private static final String HOT_COPY = "9430b459-8178-4137-aa00-7452ee966e16";
+    private static final String USER_ID = "2e1273f4-f574-4807-929e-d7c002643981";
+    private static final String COLD_BOOK = "50811f5f-33ad-40b4-b775-f055212bcb74";
+    private static final int HOT_CLIENTS = 64;
+    private static final int COLD_CLIENTS = 8;
+    private static final Duration WARM_UP = Duration.ofSeconds(3);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    @Test
+    void compareThreadModelsUnderLockContention() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%-9s %12s %12s %14s %14s%n", "threads", "hot req/s", "cold req/s", "cold p50 ms", "cold p99 ms");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-9s %12.1f %12.1f %14.1f %14.1f%n", result.name(), result.hotThroughput(),
+                    result.coldThroughput(), result.coldPercentile(0.50), result.coldPercentile(0.99));
+        }
+        assertTrue(platform.coldRequests() > 0 && virtual.coldRequests() > 0);
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BookRentalApp.class)
+                .profiles(virtualThreads ? new String[]{"h2", "virtual-threads"} : new String[]{"h2"})
+                .properties("server.port=0", "server.tomcat.threads.max=16", "logging.level.org.example.api=OFF",
+                        "library.rate-limit.enabled=false",
+                        "library.borrow.require-session=false")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return load(virtualThreads ? "virtual" : "platform", "http://localhost:" + port);
+        }
+    }
+
+    private Result load(String name, String baseUrl) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        HttpRequest borrow = put(baseUrl + "/books/borrow");
+        HttpRequest giveBack = put(baseUrl + "/books/return");
+        HttpRequest availability = HttpRequest.newBuilder(URI.create(baseUrl + "/books/" + COLD_BOOK + "/availability"))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+
+        long start = System.nanoTime();
+        long measureFrom = start + WARM_UP.toNanos();
+        long measureUntil = measureFrom + MEASUREMENT.toNanos();
+        AtomicLong hotRequests = new AtomicLong();
+        List<Long> coldLatencies = Collections.synchronizedList(new ArrayList<>());
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < HOT_CLIENTS; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < measureUntil) {
+                        send(client, borrow);
+                        send(client, giveBack);
+                        if (System.nanoTime() >= measureFrom) {
+                            hotRequests.addAndGet(2);
+                        }
+                    }
+                });
+            }
+            for (int i = 0; i < COLD_CLIENTS; i++) {
+                clients.submit(() -> {
+                    while (System.nanoTime() < measureUntil) {
+                        long sent = System.nanoTime();
+                        send(client, availability);
+                        if (sent >= measureFrom && System.nanoTime() <= measureUntil) {
+                            coldLatencies.add(System.nanoTime() - sent);
+                        }
+                    }
+                });
+            }
+            clients.shutdown();
+            clients.awaitTermination(MEASUREMENT.toSeconds() * 4, TimeUnit.SECONDS);
+        }
+        return new Result(name, hotRequests.get(), new ArrayList<>(coldLatencies));
+    }
+
+    private static HttpRequest put(String url) {
+        String body = "{\"userId\":\"" + USER_ID + "\",\"inventoryId\":\"" + HOT_COPY + "\"}";
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static void send(HttpClient client, HttpRequest request) {
+        try {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        } catch (Exception e) {
+            // Timeouts and refused connections count as lost throughput
+        }
+    }
+
+    private record Result(String name, long hotRequests, List<Long> coldLatencies) {
+        long coldRequests() {
+            return coldLatencies.size();
+        }
+
+        double hotThroughput() {
+            return hotRequests / (double) MEASUREMENT.toSeconds();
+        }
+
+        double coldThroughput() {
+            return coldLatencies.size() / (double) MEASUREMENT.toSeconds();
+        }
+
+        double coldPercentile(double percentile) {
+            if (coldLatencies.isEmpty()) {
+                return Double.NaN;
+            }
+            List<Long> sorted = coldLatencies.stream().sorted().toList();
+            int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+            return sorted.get(Math.max(0, index)) / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.api.config;
+
+import jakarta.servlet.DispatcherType;
+import org.example.api.exception.TooManyRequestsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+    private RateLimitInterceptor interceptor;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        LibraryRateLimitProperties.Budget budget = new LibraryRateLimitProperties.Budget(2, Duration.ofMinutes(1));
+        LibraryRateLimitProperties properties = new LibraryRateLimitProperties(true, Duration.ofMinutes(10), 100,
+                budget, budget, budget, budget);
+        interceptor = new RateLimitInterceptor("catalog", budget, properties);
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    void preHandle_ShouldRejectWithRetryAfter_WhenBudgetIsSpent() {
+        MockHttpServletRequest request = request("10.0.0.1", null);
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertTrue(interceptor.preHandle(request, response, null));
+
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request, response, null));
+        assertEquals("Too many requests. Please try again later.", exception.getMessage());
+        assertEquals(Duration.ofSeconds(30), exception.getRetryAfter());
+    }
+
+    @Test
+    void preHandle_ShouldKeepSeparateBudgets_PerClient() {
+        MockHttpServletRequest first = request("10.0.0.1", null);
+        interceptor.preHandle(first, response, null);
+        interceptor.preHandle(first, response, null);
+
+        assertTrue(interceptor.preHandle(request("10.0.0.2", null), response, null));
+        assertTrue(interceptor.preHandle(request("10.0.0.1", "alice"), response, null));
+        assertThrows(TooManyRequestsException.class, () -> interceptor.preHandle(first, response, null));
+    }
+
+    @Test
+    void preHandle_ShouldNotCharge_AsyncRedispatch() {
+        MockHttpServletRequest request = request("10.0.0.1", null);
+        request.setDispatcherType(DispatcherType.ASYNC);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(interceptor.preHandle(request, response, null));
+        }
+    }
+
+    private static MockHttpServletRequest request(String address, String user) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+        request.setRemoteAddr(address);
+        if (user != null) {
+            request.setUserPrincipal(() -> user);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.api.config;
+
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MockMvc matchers over the {@link SqlStats} response headers, for pinning an endpoint's query budget:
+ * {@code mockMvc.perform(get("/books")).andExpect(maxStatements(2))}. Needs {@code library.sql-stats.enabled}.
+ */
+public final class SqlStatsMatchers {
+    private SqlStatsMatchers() {
+    }
+
+    public static ResultMatcher maxStatements(int max) {
+        return result -> {
+            MockHttpServletResponse response = result.getResponse();
+            String statements = response.getHeader(SqlStats.STATEMENTS_HEADER);
+            assertNotNull(statements, "No " + SqlStats.STATEMENTS_HEADER + " header; is library.sql-stats.enabled set?");
+            assertTrue(Integer.parseInt(statements) <= max, () -> String.format(
+                    "%s %s issued %s SQL statements (%s rows, %s ms), expected at most %d",
+                    result.getRequest().getMethod(), result.getRequest().getRequestURI(), statements,
+                    response.getHeader(SqlStats.ROWS_HEADER), response.getHeader(SqlStats.TIME_HEADER), max));
+        };
+    }
+
+    public static ResultMatcher maxRows(long max) {
+        return result -> {
+            String rows = result.getResponse().getHeader(SqlStats.ROWS_HEADER);
+            assertNotNull(rows, "No " + SqlStats.ROWS_HEADER + " header; is library.sql-stats.enabled set?");
+            assertTrue(Long.parseLong(rows) <= max, () -> String.format("%s %s read %s rows, expected at most %d",
+                    result.getRequest().getMethod(), result.getRequest().getRequestURI(), rows, max));
+        };
+    }
+}
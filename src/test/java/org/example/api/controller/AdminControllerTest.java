@@ -0,0 +1,91 @@
+package org.example.api.controller;
+
+import org.example.api.config.SessionPrincipal;
+import org.example.api.dto.CacheStatsDTO;
+import org.example.api.dto.LockStripeStatsDTO;
+import org.example.api.repository.UserIdentity;
+import org.example.api.service.CacheStatsService;
+import org.example.api.service.InventoryLocks;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(AdminController.class)
+class AdminControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CacheStatsService cacheStatsService;
+
+    @MockBean
+    private InventoryLocks inventoryLocks;
+
+    @Test
+    void getCacheStats_ShouldReturnCounters() throws Exception {
+        when(cacheStatsService.getCacheStats())
+                .thenReturn(List.of(new CacheStatsDTO("bookDetails", 5, 8, 2, 0.8, 1)));
+
+        mockMvc.perform(get("/admin/caches")
+                        .principal(admin())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("bookDetails"))
+                .andExpect(jsonPath("$[0].hitCount").value(8))
+                .andExpect(jsonPath("$[0].missCount").value(2))
+                .andExpect(jsonPath("$[0].evictionCount").value(1));
+
+        verify(cacheStatsService).getCacheStats();
+    }
+
+    @Test
+    void getLockStats_ShouldReturnActiveStripes() throws Exception {
+        when(inventoryLocks.getStats())
+                .thenReturn(List.of(new LockStripeStatsDTO(42, true, 3, 120, 2, 1.5, 980.0)));
+
+        mockMvc.perform(get("/admin/locks").principal(admin()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].stripe").value(42))
+                .andExpect(jsonPath("$[0].queueLength").value(3))
+                .andExpect(jsonPath("$[0].timeouts").value(2));
+
+        verify(inventoryLocks).getStats();
+    }
+
+    @Test
+    void getCacheStats_ShouldReturn401_WhenNoSessionToken() throws Exception {
+        mockMvc.perform(get("/admin/caches"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(cacheStatsService);
+    }
+
+    @Test
+    void getLockStats_ShouldReturn403_WhenCallerIsNotAdmin() throws Exception {
+        mockMvc.perform(get("/admin/locks")
+                        .principal(new SessionPrincipal(new UserIdentity(UUID.randomUUID(), "user", "USER"))))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(inventoryLocks);
+    }
+
+    private SessionPrincipal admin() {
+        return new SessionPrincipal(new UserIdentity(UUID.randomUUID(), "admin", "ADMIN"));
+    }
+}
@@ -1,12 +1,30 @@
 package org.example.api.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.api.config.SessionPrincipal;
+import org.example.api.dto.BatchLoanRequest;
+import org.example.api.dto.BookAvailabilityDTO;
 import org.example.api.dto.BookDetailsDTO;
+import org.example.api.dto.BookSearchResultDTO;
+import org.example.api.dto.BookSuggestionDTO;
+import org.example.api.dto.BorrowAnyRequest;
 import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.InventoryDTO;
+import org.example.api.dto.LoanItemResultDTO;
+import org.example.api.dto.LoanOperationDTO;
+import org.example.api.dto.PageDTO;
 import org.example.api.dto.ReturnRequest;
+import org.example.api.exception.BadRequestException;
 import org.example.api.exception.ConflictException;
 import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.exception.ServiceUnavailableException;
+import org.example.api.repository.UserIdentity;
+import org.example.api.service.AsyncLoanService;
+import org.example.api.service.BookSearchService;
 import org.example.api.service.BookService;
+import org.example.api.service.BookSuggestionTrie;
+import org.example.api.service.CatalogVersions;
+import org.example.api.service.LoanService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -14,21 +32,46 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(BookController.class)
+@WebMvcTest(value = BookController.class, properties = {
+        "library.rate-limit.enabled=false",
+        "library.export.max-concurrent=1"
+})
+@Import(CatalogVersions.class)
 class BookControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -36,9 +79,21 @@ class BookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private BookSearchService bookSearchService;
+
+    @MockBean
+    private LoanService loanService;
+
+    @MockBean
+    private AsyncLoanService asyncLoanService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CatalogVersions catalogVersions;
+
     private UUID bookId;
     private UUID inventoryId;
     private UUID userId;
@@ -63,17 +118,46 @@ class BookControllerTest {
     @DisplayName("GET /books endpoints")
     class GetBooksTests {
         @Test
-        void getAllBooks_ShouldReturnBooks() throws Exception {
-            when(bookService.getAllBooks()).thenReturn(List.of(bookDTO));
+        void getBooks_ShouldReturnFirstPage() throws Exception {
+            when(bookService.getBooks(null, BookService.DEFAULT_PAGE_SIZE))
+                    .thenReturn(new PageDTO<>(List.of(bookDTO), "next"));
 
             mockMvc.perform(get("/books")
                             .contentType(MediaType.APPLICATION_JSON))
                     .andExpect(status().isOk())
-                    .andExpect(jsonPath("$", hasSize(1)))
-                    .andExpect(jsonPath("$[0].id").value(bookId.toString()))
-                    .andExpect(jsonPath("$[0].title").value("Test Book"));
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.items[0].id").value(bookId.toString()))
+                    .andExpect(jsonPath("$.items[0].title").value("Test Book"))
+                    .andExpect(jsonPath("$.nextCursor").value("next"));
 
-            verify(bookService).getAllBooks();
+            verify(bookService).getBooks(null, BookService.DEFAULT_PAGE_SIZE);
+        }
+
+        @Test
+        void getBooks_ShouldPassCursorAndLimit() throws Exception {
+            when(bookService.getBooks("abc", 5)).thenReturn(new PageDTO<>(List.of(bookDTO), null));
+
+            mockMvc.perform(get("/books")
+                            .param("cursor", "abc")
+                            .param("limit", "5")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+            verify(bookService).getBooks("abc", 5);
+        }
+
+        @Test
+        void getBooks_ShouldReturn400_WhenCursorInvalid() throws Exception {
+            when(bookService.getBooks("bad", BookService.DEFAULT_PAGE_SIZE))
+                    .thenThrow(new BadRequestException("Invalid cursor"));
+
+            mockMvc.perform(get("/books")
+                            .param("cursor", "bad")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.errors[0]").value("Invalid cursor"));
         }
 
         @Test
@@ -102,33 +186,350 @@ class BookControllerTest {
         }
     }
 
+    @Nested
+    @DisplayName("Conditional GET /books endpoints")
+    class ConditionalGetTests {
+        @Test
+        void getBooks_ShouldReturn304_WhenCatalogUnchanged() throws Exception {
+            when(bookService.getBooks(null, BookService.DEFAULT_PAGE_SIZE))
+                    .thenReturn(new PageDTO<>(List.of(bookDTO), null));
+            String etag = catalogVersions.catalogETag();
+
+            mockMvc.perform(get("/books"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+            mockMvc.perform(get("/books").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(content().string(""));
+
+            verify(bookService, times(1)).getBooks(null, BookService.DEFAULT_PAGE_SIZE);
+        }
+
+        @Test
+        void getBooks_ShouldReturn200_WhenCatalogChanged() throws Exception {
+            when(bookService.getBooks(null, BookService.DEFAULT_PAGE_SIZE))
+                    .thenReturn(new PageDTO<>(List.of(bookDTO), null));
+            String staleEtag = catalogVersions.catalogETag();
+            catalogVersions.bump(UUID.randomUUID());
+
+            mockMvc.perform(get("/books").header(HttpHeaders.IF_NONE_MATCH, staleEtag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, catalogVersions.catalogETag()))
+                    .andExpect(jsonPath("$.items", hasSize(1)));
+        }
+
+        @Test
+        void getBookById_ShouldReturn304_WhenBookUnchanged() throws Exception {
+            String etag = catalogVersions.bookETag(bookId);
+            catalogVersions.bump(UUID.randomUUID());
+
+            mockMvc.perform(get("/books/{id}", bookId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+            verify(bookService, never()).getBookById(any());
+        }
+
+        @Test
+        void getBookById_ShouldReturn200_WhenBookChanged() throws Exception {
+            when(bookService.getBookById(bookId)).thenReturn(bookDTO);
+            String staleEtag = catalogVersions.bookETag(bookId);
+            catalogVersions.bump(bookId);
+
+            mockMvc.perform(get("/books/{id}", bookId).header(HttpHeaders.IF_NONE_MATCH, staleEtag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.ETAG, catalogVersions.bookETag(bookId)))
+                    .andExpect(jsonPath("$.id").value(bookId.toString()));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /books availability endpoints")
+    class AvailabilityTests {
+        @Test
+        void getAvailability_ShouldReturnPage() throws Exception {
+            BookAvailabilityDTO availability = new BookAvailabilityDTO(bookId, 3, 2, null);
+            when(bookService.getAvailability(null, BookService.DEFAULT_AVAILABILITY_PAGE_SIZE))
+                    .thenReturn(new PageDTO<>(List.of(availability), null));
+
+            mockMvc.perform(get("/books/availability")
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.items[0].bookId").value(bookId.toString()))
+                    .andExpect(jsonPath("$.items[0].totalCopies").value(3))
+                    .andExpect(jsonPath("$.items[0].availableCopies").value(2));
+
+            verify(bookService).getAvailability(null, BookService.DEFAULT_AVAILABILITY_PAGE_SIZE);
+        }
+
+        @Test
+        void getBookAvailability_ShouldReturnSummary() throws Exception {
+            when(bookService.getBookAvailability(bookId)).thenReturn(new BookAvailabilityDTO(bookId, 3, 3, null));
+
+            mockMvc.perform(get("/books/{id}/availability", bookId)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.bookId").value(bookId.toString()))
+                    .andExpect(jsonPath("$.availableCopies").value(3));
+        }
+
+        @Test
+        void getBookAvailability_ShouldReturn404_WhenNotFound() throws Exception {
+            when(bookService.getBookAvailability(bookId))
+                    .thenThrow(new ResourceNotFoundException("Book not found"));
+
+            mockMvc.perform(get("/books/{id}/availability", bookId)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isNotFound());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /books/search")
+    class SearchTests {
+        @Test
+        void searchBooks_ShouldReturnRankedPage() throws Exception {
+            BookSearchResultDTO result = new BookSearchResultDTO(bookId, "Test Book", "Test Author", "test.jpg", 3, 1);
+            when(bookSearchService.search("test", null, BookSearchService.DEFAULT_PAGE_SIZE))
+                    .thenReturn(new PageDTO<>(List.of(result), "AAAAFA"));
+
+            mockMvc.perform(get("/books/search").param("q", "test"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(1)))
+                    .andExpect(jsonPath("$.items[0].id").value(bookId.toString()))
+                    .andExpect(jsonPath("$.items[0].author").value("Test Author"))
+                    .andExpect(jsonPath("$.items[0].availableCopies").value(1))
+                    .andExpect(jsonPath("$.nextCursor").value("AAAAFA"));
+        }
+
+        @Test
+        void searchBooks_ShouldReturn400_WhenQueryMissing() throws Exception {
+            when(bookSearchService.search(null, null, BookSearchService.DEFAULT_PAGE_SIZE))
+                    .thenThrow(new BadRequestException("Search query must not be blank"));
+
+            mockMvc.perform(get("/books/search"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        void suggestBooks_ShouldReturnCompletions() throws Exception {
+            when(bookSearchService.suggest("test b", BookSuggestionTrie.MAX_COMPLETIONS)).thenReturn(List.of(
+                    new BookSuggestionDTO(BookSuggestionDTO.Type.TITLE, "Test Book", bookId),
+                    new BookSuggestionDTO(BookSuggestionDTO.Type.AUTHOR, "Test Bauthor", null)));
+
+            mockMvc.perform(get("/books/suggest").param("q", "test b"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].type").value("TITLE"))
+                    .andExpect(jsonPath("$[0].bookId").value(bookId.toString()))
+                    .andExpect(jsonPath("$[1].type").value("AUTHOR"));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /books/export endpoint")
+    class ExportBooksTests {
+        @BeforeEach
+        void stubExport() {
+            doAnswer(invocation -> {
+                Consumer<BookDetailsDTO> sink = invocation.getArgument(0);
+                sink.accept(bookDTO);
+                sink.accept(bookDTO);
+                return null;
+            }).when(bookService).exportCatalog(any());
+        }
+
+        @Test
+        void exportBooks_ShouldStreamOneJsonDocumentPerLine() throws Exception {
+            MvcResult result = mockMvc.perform(get("/books/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-ndjson"))
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.split("\n");
+            assertEquals(2, lines.length);
+            assertEquals(bookDTO, objectMapper.readValue(lines[0], BookDetailsDTO.class));
+            assertEquals(bookDTO, objectMapper.readValue(lines[1], BookDetailsDTO.class));
+        }
+
+        @Test
+        void exportBooks_ShouldGzip_WhenAccepted() throws Exception {
+            MvcResult result = mockMvc.perform(get("/books/export")
+                            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            byte[] compressed = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                assertEquals(2, body.split("\n").length);
+                assertTrue(body.endsWith("\n"));
+            }
+        }
+
+        @Test
+        void exportBooks_ShouldNotGzip_WhenRefusedOrOnlyMentioned() throws Exception {
+            for (String acceptEncoding : List.of("gzip;q=0, deflate", "deflate, *;q=0", "x-gzipped, br")) {
+                MvcResult result = mockMvc.perform(get("/books/export")
+                                .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+
+                mockMvc.perform(asyncDispatch(result))
+                        .andExpect(status().isOk())
+                        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+            }
+        }
+
+        @Test
+        void exportBooks_ShouldReturn503_WhenAllExportPermitsInUse() throws Exception {
+            CountDownLatch streaming = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                streaming.countDown();
+                release.await();
+                return null;
+            }).when(bookService).exportCatalog(any());
+
+            MvcResult first = mockMvc.perform(get("/books/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            try {
+                assertTrue(streaming.await(5, TimeUnit.SECONDS));
+                mockMvc.perform(get("/books/export"))
+                        .andExpect(status().isServiceUnavailable())
+                        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"));
+            } finally {
+                release.countDown();
+            }
+            mockMvc.perform(asyncDispatch(first)).andExpect(status().isOk());
+
+            stubExport();
+            performAsync(get("/books/export")).andExpect(status().isOk());
+        }
+
+        @Test
+        void acceptsGzip_ShouldHonorQualityAndWildcard() {
+            assertTrue(BookController.acceptsGzip("deflate, GZIP;q=0.5"));
+            assertTrue(BookController.acceptsGzip("br, *"));
+            assertFalse(BookController.acceptsGzip("gzip; q=0.000"));
+            assertFalse(BookController.acceptsGzip("gzip;q=0, *"));
+            assertFalse(BookController.acceptsGzip("identity"));
+        }
+    }
+
     @Nested
     @DisplayName("PUT /books/borrow endpoint")
     class BorrowBookTests {
         @Test
         void borrowBook_ShouldReturn202_WhenSuccessful() throws Exception {
             BorrowRequest request = new BorrowRequest(userId, inventoryId);
+            when(loanService.borrowBook(request)).thenReturn(CompletableFuture.completedFuture(null));
 
-            mockMvc.perform(put("/books/borrow")
+            performAsync(put("/books/borrow")
+                    .principal(caller())
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isAccepted());
 
-            verify(bookService).borrowBook(request);
+            verify(loanService).borrowBook(request);
         }
 
         @Test
         void borrowBook_ShouldReturn409_WhenBookAlreadyBorrowed() throws Exception {
             BorrowRequest request = new BorrowRequest(userId, inventoryId);
-            doThrow(new ConflictException("Book already borrowed"))
-                    .when(bookService).borrowBook(request);
+            when(loanService.borrowBook(request))
+                    .thenReturn(CompletableFuture.failedFuture(new ConflictException("Book already borrowed")));
 
-            mockMvc.perform(put("/books/borrow")
+            performAsync(put("/books/borrow")
+                    .principal(caller())
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isConflict());
 
-            verify(bookService).borrowBook(request);
+            verify(loanService).borrowBook(request);
+        }
+
+        @Test
+        void borrowBook_ShouldAccept_WhenSessionTokenMatchesUser() throws Exception {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+            when(loanService.borrowBook(request)).thenReturn(CompletableFuture.completedFuture(null));
+
+            performAsync(put("/books/borrow")
+                            .principal(caller())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isAccepted());
+
+            verify(loanService).borrowBook(request);
+        }
+
+        @Test
+        void borrowBook_ShouldReturn401_WhenNoSessionToken() throws Exception {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+
+            mockMvc.perform(put("/books/borrow")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(header().string(HttpHeaders.WWW_AUTHENTICATE, "Bearer"))
+                    .andExpect(jsonPath("$.errors[0]").value("A session token is required to borrow or return books"));
+
+            verifyNoInteractions(loanService);
+        }
+
+        @Test
+        void borrowBook_ShouldReturn403_WhenSessionTokenBelongsToAnotherUser() throws Exception {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+
+            mockMvc.perform(put("/books/borrow")
+                            .principal(new SessionPrincipal(new UserIdentity(UUID.randomUUID(), "other", "USER")))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isForbidden())
+                    .andExpect(jsonPath("$.errors[0]").value("The session token belongs to another user"));
+
+            verifyNoInteractions(loanService);
+        }
+
+        @Test
+        void borrowAnyCopy_ShouldReturnClaimedCopy() throws Exception {
+            BorrowAnyRequest request = new BorrowAnyRequest(userId, bookId);
+            when(loanService.borrowAnyCopy(request))
+                    .thenReturn(CompletableFuture.completedFuture(new InventoryDTO(inventoryId, null, null)));
+
+            performAsync(put("/books/borrow-any")
+                    .principal(caller())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.id").value(inventoryId.toString()));
+        }
+
+        @Test
+        void borrowAnyCopy_ShouldReturn409_WhenNoCopyAvailable() throws Exception {
+            BorrowAnyRequest request = new BorrowAnyRequest(userId, bookId);
+            when(loanService.borrowAnyCopy(request))
+                    .thenReturn(CompletableFuture.failedFuture(new ConflictException("No copies of the book are available")));
+
+            performAsync(put("/books/borrow-any")
+                    .principal(caller())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.errors[0]").value("No copies of the book are available"));
         }
 
         @Test
@@ -136,25 +537,142 @@ class BookControllerTest {
             BorrowRequest request = new BorrowRequest(null, null);
 
             mockMvc.perform(put("/books/borrow")
+                    .principal(caller())
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isBadRequest());
 
-            verify(bookService, never()).borrowBook(any());
+            verify(loanService, never()).borrowBook(any());
         }
 
         @Test
         void borrowBook_ShouldReturn404_WhenInventoryNotFound() throws Exception {
             BorrowRequest request = new BorrowRequest(userId, inventoryId);
-            doThrow(new ResourceNotFoundException("Inventory not found"))
-                    .when(bookService).borrowBook(request);
+            when(loanService.borrowBook(request))
+                    .thenReturn(CompletableFuture.failedFuture(new ResourceNotFoundException("Inventory not found")));
 
-            mockMvc.perform(put("/books/borrow")
+            performAsync(put("/books/borrow")
+                    .principal(caller())
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isNotFound());
 
-            verify(bookService).borrowBook(request);
+            verify(loanService).borrowBook(request);
+        }
+    }
+
+    @Nested
+    @DisplayName("PUT /books batch endpoints")
+    class BatchLoanTests {
+        @Test
+        void borrowBooks_ShouldReturnPerItemResults() throws Exception {
+            UUID otherInventoryId = UUID.randomUUID();
+            BatchLoanRequest request = new BatchLoanRequest(userId, List.of(inventoryId, otherInventoryId));
+            when(loanService.borrowBooks(request)).thenReturn(CompletableFuture.completedFuture(List.of(
+                    new LoanItemResultDTO(inventoryId, LoanItemResultDTO.Status.OK, null),
+                    new LoanItemResultDTO(otherInventoryId, LoanItemResultDTO.Status.CONFLICT,
+                            "Book is already borrowed"))));
+
+            performAsync(put("/books/borrow/batch")
+                    .principal(caller())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(2)))
+                    .andExpect(jsonPath("$[0].status").value("OK"))
+                    .andExpect(jsonPath("$[1].status").value("CONFLICT"))
+                    .andExpect(jsonPath("$[1].error").value("Book is already borrowed"));
+        }
+
+        @Test
+        void returnBooks_ShouldReturn400_WhenNoInventoryIds() throws Exception {
+            BatchLoanRequest request = new BatchLoanRequest(userId, List.of());
+
+            mockMvc.perform(put("/books/return/batch")
+                    .principal(caller())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.errors[0]").value("Inventory IDs are required"));
+
+            verify(loanService, never()).returnBooks(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Asynchronous loan operations")
+    class AsyncLoanTests {
+        @Test
+        void borrowBook_ShouldQueueOperation_WhenAsyncPreferred() throws Exception {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+            LoanOperationDTO operation = new LoanOperationDTO(UUID.randomUUID(), LoanOperationDTO.Type.BORROW,
+                    userId, inventoryId, LoanOperationDTO.Status.PENDING, null, Instant.now(), null);
+            when(asyncLoanService.submitBorrow(request)).thenReturn(operation);
+
+            performAsync(put("/books/borrow")
+                    .principal(caller())
+                            .header("Prefer", "respond-async")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isAccepted())
+                    .andExpect(header().string(HttpHeaders.LOCATION, "/books/operations/" + operation.id()))
+                    .andExpect(header().string("Preference-Applied", "respond-async"))
+                    .andExpect(jsonPath("$.id").value(operation.id().toString()))
+                    .andExpect(jsonPath("$.status").value("PENDING"));
+
+            verify(loanService, never()).borrowBook(any());
+        }
+
+        @Test
+        void returnBook_ShouldReturn503_WhenQueueFull() throws Exception {
+            ReturnRequest request = new ReturnRequest(userId, inventoryId);
+            when(asyncLoanService.submitReturn(request))
+                    .thenThrow(new ServiceUnavailableException("Too many pending loan operations", Duration.ofSeconds(1)));
+
+            mockMvc.perform(put("/books/return")
+                    .principal(caller())
+                            .header("Prefer", "respond-async")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        }
+
+        @Test
+        void getOperation_ShouldReturnStatus() throws Exception {
+            UUID operationId = UUID.randomUUID();
+            when(asyncLoanService.getOperation(operationId)).thenReturn(new LoanOperationDTO(operationId,
+                    LoanOperationDTO.Type.RETURN, userId, inventoryId, LoanOperationDTO.Status.CONFLICT,
+                    "Book is not currently borrowed", Instant.now(), Instant.now()));
+
+            mockMvc.perform(get("/books/operations/{id}", operationId).principal(caller()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.status").value("CONFLICT"))
+                    .andExpect(jsonPath("$.error").value("Book is not currently borrowed"));
+        }
+
+        @Test
+        void getOperation_ShouldReturn403_WhenOperationBelongsToAnotherUser() throws Exception {
+            UUID operationId = UUID.randomUUID();
+            when(asyncLoanService.getOperation(operationId)).thenReturn(new LoanOperationDTO(operationId,
+                    LoanOperationDTO.Type.BORROW, userId, inventoryId, LoanOperationDTO.Status.PENDING,
+                    null, Instant.now(), null));
+
+            mockMvc.perform(get("/books/operations/{id}", operationId)
+                            .principal(new SessionPrincipal(new UserIdentity(UUID.randomUUID(), "other", "USER"))))
+                    .andExpect(status().isForbidden())
+                    .andExpect(jsonPath("$.inventoryId").doesNotExist());
+        }
+
+        @Test
+        void getOperation_ShouldReturn401_WhenNoSessionToken() throws Exception {
+            UUID operationId = UUID.randomUUID();
+            when(asyncLoanService.getOperation(operationId)).thenReturn(new LoanOperationDTO(operationId,
+                    LoanOperationDTO.Type.BORROW, userId, inventoryId, LoanOperationDTO.Status.PENDING,
+                    null, Instant.now(), null));
+
+            mockMvc.perform(get("/books/operations/{id}", operationId))
+                    .andExpect(status().isUnauthorized());
         }
     }
 
@@ -164,41 +682,58 @@ class BookControllerTest {
         @Test
         void returnBook_ShouldReturn202_WhenSuccessful() throws Exception {
             ReturnRequest request = new ReturnRequest(userId, inventoryId);
+            when(loanService.returnBook(request)).thenReturn(CompletableFuture.completedFuture(null));
 
-            mockMvc.perform(put("/books/return")
+            performAsync(put("/books/return")
+                    .principal(caller())
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isAccepted());
 
-            verify(bookService).returnBook(request);
+            verify(loanService).returnBook(request);
         }
 
         @Test
         void returnBook_ShouldReturn409_WhenBookNotBorrowed() throws Exception {
             ReturnRequest request = new ReturnRequest(userId, inventoryId);
-            doThrow(new ConflictException("Book is not currently borrowed"))
-                    .when(bookService).returnBook(request);
+            when(loanService.returnBook(request))
+                    .thenReturn(CompletableFuture.failedFuture(new ConflictException("Book is not currently borrowed")));
 
-            mockMvc.perform(put("/books/return")
+            performAsync(put("/books/return")
+                    .principal(caller())
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isConflict());
 
-            verify(bookService).returnBook(request);
+            verify(loanService).returnBook(request);
         }
 
         @Test
         void returnBook_ShouldReturn409_WhenWrongUser() throws Exception {
             ReturnRequest request = new ReturnRequest(userId, inventoryId);
-            doThrow(new ConflictException("Book can't be returned by another user"))
-                    .when(bookService).returnBook(request);
+            when(loanService.returnBook(request))
+                    .thenReturn(CompletableFuture.failedFuture(new ConflictException("Book can't be returned by another user")));
 
-            mockMvc.perform(put("/books/return")
+            performAsync(put("/books/return")
+                    .principal(caller())
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isConflict());
 
-            verify(bookService).returnBook(request);
+            verify(loanService).returnBook(request);
+        }
+
+        @Test
+        void returnBook_ShouldReturn401_WhenNoSessionToken() throws Exception {
+            ReturnRequest request = new ReturnRequest(userId, inventoryId);
+
+            mockMvc.perform(put("/books/return")
+                            .header("Prefer", "respond-async")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isUnauthorized());
+
+            verifyNoInteractions(loanService, asyncLoanService);
         }
 
         @Test
@@ -206,25 +741,38 @@ class BookControllerTest {
             ReturnRequest request = new ReturnRequest(null, null);
 
             mockMvc.perform(put("/books/return")
+                    .principal(caller())
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isBadRequest());
 
-            verify(bookService, never()).returnBook(any());
+            verify(loanService, never()).returnBook(any());
         }
 
         @Test
         void returnBook_ShouldReturn404_WhenInventoryNotFound() throws Exception {
             ReturnRequest request = new ReturnRequest(userId, inventoryId);
-            doThrow(new ResourceNotFoundException("Inventory not found"))
-                    .when(bookService).returnBook(request);
+            when(loanService.returnBook(request))
+                    .thenReturn(CompletableFuture.failedFuture(new ResourceNotFoundException("Inventory not found")));
 
-            mockMvc.perform(put("/books/return")
+            performAsync(put("/books/return")
+                    .principal(caller())
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isNotFound());
 
-            verify(bookService).returnBook(request);
+            verify(loanService).returnBook(request);
         }
     }
-}
\ No newline at end of file
+
+    private SessionPrincipal caller() {
+        return new SessionPrincipal(new UserIdentity(userId, "user", "USER"));
+    }
+
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.api.controller;
+
+import org.example.api.dto.PageDTO;
+import org.example.api.service.AsyncLoanService;
+import org.example.api.service.BookSearchService;
+import org.example.api.service.BookService;
+import org.example.api.service.CatalogVersions;
+import org.example.api.service.LoanService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks which budget each catalog endpoint spends, with budgets small enough to run out in a test.
+ */
+@WebMvcTest(value = BookController.class, properties = {
+        "library.rate-limit.catalog.capacity=2",
+        "library.rate-limit.suggest.capacity=20"
+})
+@Import(CatalogVersions.class)
+class BookRateLimitTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private BookService bookService;
+
+    @MockBean
+    private BookSearchService bookSearchService;
+
+    @MockBean
+    private LoanService loanService;
+
+    @MockBean
+    private AsyncLoanService asyncLoanService;
+
+    @Test
+    void suggest_ShouldHaveItsOwnBudget_AndLeaveTheCatalogBudgetUnspent() throws Exception {
+        when(bookSearchService.suggest(anyString(), anyInt())).thenReturn(List.of());
+        when(bookSearchService.search(anyString(), any(), anyInt())).thenReturn(new PageDTO<>(List.of(), null));
+
+        String typed = "learning go";
+        for (int i = 1; i <= typed.length(); i++) {
+            mockMvc.perform(get("/books/suggest").param("q", typed.substring(0, i)))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/books/search").param("q", typed)).andExpect(status().isOk());
+        mockMvc.perform(get("/books/search").param("q", typed)).andExpect(status().isOk());
+        mockMvc.perform(get("/books/search").param("q", typed)).andExpect(status().isTooManyRequests());
+    }
+}
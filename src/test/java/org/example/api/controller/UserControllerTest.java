@@ -13,18 +13,25 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@WebMvcTest(UserController.class)
+@WebMvcTest(value = UserController.class, properties = "library.rate-limit.enabled=false")
 class UserControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -56,15 +63,18 @@ class UserControllerTest {
     class LoginTests {
         @Test
         void login_ShouldReturnUser_WhenValidCredentials() throws Exception {
-            when(userFacadeService.login(loginRequest)).thenReturn(userDTO);
+            when(userFacadeService.login(loginRequest)).thenReturn(CompletableFuture.completedFuture(
+                    new LoginDTO(userDTO, "token", Instant.parse("2030-01-01T00:00:00Z"))));
 
-            mockMvc.perform(post("/user/login")
+            performAsync(post("/user/login")
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(loginRequest)))
                     .andExpect(status().isOk())
                     .andExpect(jsonPath("$.id").value(userId.toString()))
                     .andExpect(jsonPath("$.username").value("user"))
-                    .andExpect(jsonPath("$.role").value("USER"));
+                    .andExpect(jsonPath("$.role").value("USER"))
+                    .andExpect(jsonPath("$.token").value("token"))
+                    .andExpect(jsonPath("$.expiresAt").value("2030-01-01T00:00:00Z"));
 
             verify(userFacadeService).login(loginRequest);
         }
@@ -72,9 +82,9 @@ class UserControllerTest {
         @Test
         void login_ShouldReturn404_WhenInvalidCredentials() throws Exception {
             when(userFacadeService.login(loginRequest))
-                    .thenThrow(new ResourceNotFoundException("Invalid username or password"));
+                    .thenReturn(CompletableFuture.failedFuture(new ResourceNotFoundException("Invalid username or password")));
 
-            mockMvc.perform(post("/user/login")
+            performAsync(post("/user/login")
                             .contentType(MediaType.APPLICATION_JSON)
                             .content(objectMapper.writeValueAsString(loginRequest)))
                     .andExpect(status().isNotFound());
@@ -133,4 +143,11 @@ class UserControllerTest {
             verify(userFacadeService, never()).getUserById(any());
         }
     }
-}
\ No newline at end of file
+
+    private ResultActions performAsync(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
@@ -4,6 +4,8 @@ import org.example.api.dto.*;
 import org.example.api.entity.Book;
 import org.example.api.entity.Inventory;
 import org.example.api.entity.User;
+import org.example.api.repository.BookInventoryRow;
+import org.example.api.repository.UserIdentity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -150,6 +152,17 @@ class LibraryMapperTest {
             assertEquals(loanDate, firstInventory.loanDate());
         }
 
+        @Test
+        void toUserDTO_ShouldMapIdentityAndLoans() {
+            UserDTO result = libraryMapper.toUserDTO(new UserIdentity(userId, "user", "USER"), List.of(inventory));
+
+            assertEquals(userId, result.id());
+            assertEquals("user", result.username());
+            assertEquals("USER", result.role());
+            assertEquals(1, result.inventories().size());
+            assertEquals(bookId, result.inventories().getFirst().book().id());
+        }
+
         @Test
         void toUserDTO_ShouldReturnNull_WhenUserIsNull() {
             assertNull(libraryMapper.toUserDTO(null));
@@ -169,6 +182,25 @@ class LibraryMapperTest {
         }
     }
 
+    @Nested
+    @DisplayName("BorrowerDTO Mapping Tests")
+    class BorrowerDtoMappingTests {
+        @Test
+        void toBorrowerDTO_ShouldMapAllFields() {
+            BorrowerDTO result = libraryMapper.toBorrowerDTO(user);
+
+            assertNotNull(result);
+            assertEquals(userId, result.id());
+            assertEquals("user", result.username());
+            assertEquals("USER", result.role());
+        }
+
+        @Test
+        void toBorrowerDTO_ShouldReturnNull_WhenUserIsNull() {
+            assertNull(libraryMapper.toBorrowerDTO(null));
+        }
+    }
+
     @Nested
     @DisplayName("InventoryUserDTO Mapping Tests")
     class InventoryUserDtoMappingTests {
@@ -185,6 +217,15 @@ class LibraryMapperTest {
             assertEquals("USER", result.user().role());
         }
 
+        @Test
+        void toInventoryUserDTO_ShouldNotWalkBorrowerLoans() {
+            user.setInventories(null);
+
+            InventoryUserDTO result = libraryMapper.toInventoryUserDTO(inventory);
+
+            assertEquals(new BorrowerDTO(userId, "user", "USER"), result.user());
+        }
+
         @Test
         void toInventoryUserDTO_ShouldReturnNull_WhenInventoryIsNull() {
             assertNull(libraryMapper.toInventoryUserDTO(null));
@@ -247,4 +288,44 @@ class LibraryMapperTest {
             assertTrue(result.inventories().isEmpty());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("BookDetailsDTO Row Mapping Tests")
+    class BookDetailsRowMappingTests {
+        @Test
+        void toBookDetailsDTO_ShouldMapRowsOfOneBook() {
+            BookInventoryRow borrowed = new BookInventoryRow(bookId, "Test Book", "Test Author", "test.jpg",
+                    inventoryId, loanDate, userId, "user", "USER");
+            UUID freeCopyId = UUID.randomUUID();
+            BookInventoryRow free = new BookInventoryRow(bookId, "Test Book", "Test Author", "test.jpg",
+                    freeCopyId, null, null, null, null);
+
+            BookDetailsDTO result = libraryMapper.toBookDetailsDTOFromRows(List.of(borrowed, free));
+
+            assertEquals(bookId, result.id());
+            assertEquals("Test Book", result.title());
+            assertEquals("Test Author", result.author());
+            assertEquals("test.jpg", result.image());
+            assertEquals(List.of(
+                    new InventoryUserDTO(inventoryId, loanDate, new BorrowerDTO(userId, "user", "USER")),
+                    new InventoryUserDTO(freeCopyId, null, null)
+            ), result.inventories());
+        }
+
+        @Test
+        void toBookDetailsDTO_ShouldMapBookWithoutCopies() {
+            BookInventoryRow row = new BookInventoryRow(bookId, "Test Book", "Test Author", "test.jpg",
+                    null, null, null, null, null);
+
+            BookDetailsDTO result = libraryMapper.toBookDetailsDTOFromRows(List.of(row));
+
+            assertEquals(bookId, result.id());
+            assertTrue(result.inventories().isEmpty());
+        }
+
+        @Test
+        void toBookDetailsDTO_ShouldReturnNull_WhenRowsEmpty() {
+            assertNull(libraryMapper.toBookDetailsDTOFromRows(List.of()));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.api.service;
+
+import org.example.api.config.LibraryBorrowProperties;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.LoanOperationDTO;
+import org.example.api.dto.ReturnRequest;
+import org.example.api.exception.ConflictException;
+import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncLoanServiceTest {
+    @Mock
+    private LoanService loanService;
+
+    @Mock
+    private UserService userService;
+
+    private AsyncLoanService asyncLoanService;
+    private UUID userId;
+    private UUID inventoryId;
+
+    @BeforeEach
+    void setUp() {
+        LibraryBorrowProperties properties = new LibraryBorrowProperties(LibraryBorrowProperties.Mode.PESSIMISTIC,
+                new LibraryBorrowProperties.Async(1, 1, Duration.ofMinutes(1), 100),
+                new LibraryBorrowProperties.Concurrency(8, Duration.ofSeconds(2)),
+                new LibraryBorrowProperties.Retry(3, Duration.ofMillis(10), Duration.ofMillis(40), 2,
+                        Duration.ofSeconds(1)),
+                new LibraryBorrowProperties.Lock(16, Duration.ofSeconds(1)), true);
+        asyncLoanService = new AsyncLoanService(loanService, userService, properties, true);
+        userId = UUID.randomUUID();
+        inventoryId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        asyncLoanService.shutdown();
+    }
+
+    @Test
+    void submitBorrow_ShouldRunOffRequestThread_AndReportSuccess() throws InterruptedException {
+        BorrowRequest request = new BorrowRequest(userId, inventoryId);
+        when(loanService.borrowBook(request)).thenReturn(CompletableFuture.completedFuture(null));
+
+        LoanOperationDTO operation = asyncLoanService.submitBorrow(request);
+
+        assertEquals(LoanOperationDTO.Status.PENDING, operation.status());
+        assertEquals(LoanOperationDTO.Status.SUCCEEDED, awaitCompletion(operation.id()).status());
+        verify(loanService).borrowBook(request);
+    }
+
+    @Test
+    void submitReturn_ShouldReportConflict() throws InterruptedException {
+        ReturnRequest request = new ReturnRequest(userId, inventoryId);
+        when(loanService.returnBook(request))
+                .thenReturn(CompletableFuture.failedFuture(new ConflictException("Book is not currently borrowed")));
+
+        LoanOperationDTO done = awaitCompletion(asyncLoanService.submitReturn(request).id());
+
+        assertEquals(LoanOperationDTO.Status.CONFLICT, done.status());
+        assertEquals("Book is not currently borrowed", done.error());
+        assertNotNull(done.completedAt());
+    }
+
+    @Test
+    void submitBorrow_ShouldRejectUnknownUser_BeforeQueueing() {
+        when(userService.getUserIdentity(userId)).thenThrow(new ResourceNotFoundException("User not found"));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> asyncLoanService.submitBorrow(new BorrowRequest(userId, inventoryId)));
+        verifyNoInteractions(loanService);
+    }
+
+    @Test
+    void submitReturn_ShouldRejectUnknownUser_BeforeQueueing() {
+        when(userService.getUserIdentity(userId)).thenThrow(new ResourceNotFoundException("User not found"));
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> asyncLoanService.submitReturn(new ReturnRequest(userId, inventoryId)));
+        verifyNoInteractions(loanService);
+    }
+
+    @Test
+    void submitReturn_ShouldThrowServiceUnavailable_WhenLaneFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(loanService.returnBook(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        asyncLoanService.submitReturn(new ReturnRequest(userId, inventoryId));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        asyncLoanService.submitReturn(new ReturnRequest(userId, inventoryId));
+
+        ReturnRequest overflow = new ReturnRequest(userId, inventoryId);
+        assertThrows(ServiceUnavailableException.class, () -> asyncLoanService.submitReturn(overflow));
+        release.countDown();
+    }
+
+    @Test
+    void getOperation_ShouldThrowNotFound_WhenUnknown() {
+        UUID id = UUID.randomUUID();
+        assertThrows(ResourceNotFoundException.class, () -> asyncLoanService.getOperation(id));
+    }
+
+    private LoanOperationDTO awaitCompletion(UUID id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        LoanOperationDTO operation = asyncLoanService.getOperation(id);
+        while (operation.completedAt() == null && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            operation = asyncLoanService.getOperation(id);
+        }
+        return operation;
+    }
+}
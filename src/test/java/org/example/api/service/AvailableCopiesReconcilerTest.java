@@ -0,0 +1,159 @@
+package org.example.api.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.api.dto.BatchLoanRequest;
+import org.example.api.dto.BookAvailabilityDTO;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.ReturnRequest;
+import org.example.api.entity.Book;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that loans keep {@code book.available_copies} in step with the inventory table, and that the
+ * reconciler repairs counters changed behind the application's back.
+ */
+@SpringBootTest(properties = "library.reconcile.initial-delay=1h")
+@ActiveProfiles("h2")
+@AutoConfigureMockMvc
+class AvailableCopiesReconcilerTest {
+    private static final UUID LEARNING_GO = UUID.fromString("50811f5f-33ad-40b4-b775-f055212bcb74");
+    private static final UUID REACT_COOKBOOK = UUID.fromString("1b1248ca-14e0-4dc9-a0e7-e1eabdf02c36");
+    private static final UUID REACT_COOKBOOK_COPY = UUID.fromString("9430b459-8178-4137-aa00-7452ee966e16");
+    private static final UUID USER_ID = UUID.fromString("2e1273f4-f574-4807-929e-d7c002643981");
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AvailableCopiesReconciler reconciler;
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        assertEquals(0, reconciler.reconcile());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("UPDATE inventory SET user_id = NULL, loan_date = NULL");
+        reconciler.reconcile();
+        // A counter drifted on its own moves the index by the repair too, until the index is refreshed
+        bookSearchService.refresh();
+    }
+
+    @Test
+    void borrowAndReturn_ShouldKeepCounterInStep() {
+        int before = availableCopies(REACT_COOKBOOK);
+
+        bookService.borrowBook(new BorrowRequest(USER_ID, REACT_COOKBOOK_COPY));
+        assertEquals(before - 1, availableCopies(REACT_COOKBOOK));
+        BookAvailabilityDTO availability = bookService.getBookAvailability(REACT_COOKBOOK);
+        assertEquals(before - 1, availability.availableCopies());
+        assertNotNull(availability.earliestLoanDate());
+
+        bookService.returnBook(new ReturnRequest(USER_ID, REACT_COOKBOOK_COPY));
+        assertEquals(before, availableCopies(REACT_COOKBOOK));
+
+        bookService.borrowBooks(new BatchLoanRequest(USER_ID, List.of(REACT_COOKBOOK_COPY)));
+        assertEquals(before - 1, availableCopies(REACT_COOKBOOK));
+        assertEquals(0, reconciler.reconcile());
+    }
+
+    @Test
+    void borrowBook_ShouldNotEvictCachedBooks() {
+        bookService.getBookById(LEARNING_GO);
+        assertTrue(entityManagerFactory.getCache().contains(Book.class, LEARNING_GO));
+
+        bookService.borrowBook(new BorrowRequest(USER_ID, REACT_COOKBOOK_COPY));
+
+        assertTrue(entityManagerFactory.getCache().contains(Book.class, LEARNING_GO));
+    }
+
+    @Test
+    void reconcile_ShouldRepairDriftedCounters() {
+        int expected = availableCopies(REACT_COOKBOOK);
+        jdbcTemplate.update("UPDATE book SET available_copies = 42 WHERE id = ?", REACT_COOKBOOK);
+        jdbcTemplate.update("UPDATE book SET available_copies = -1 WHERE id = ?", LEARNING_GO);
+
+        assertEquals(2, reconciler.reconcile());
+
+        assertEquals(expected, availableCopies(REACT_COOKBOOK));
+        assertEquals(scannedCopies(LEARNING_GO), availableCopies(LEARNING_GO));
+    }
+
+    @Test
+    void reconcile_ShouldMoveSearchIndexWithRepairedCounter() {
+        long indexed = indexedCopies(REACT_COOKBOOK);
+        jdbcTemplate.update("UPDATE inventory SET user_id = ?, loan_date = CURRENT_TIMESTAMP WHERE id = ?",
+                USER_ID, REACT_COOKBOOK_COPY);
+
+        assertEquals(1, reconciler.reconcile());
+
+        assertEquals(indexed - 1, indexedCopies(REACT_COOKBOOK));
+    }
+
+    @Test
+    void reconcile_ShouldShowCopyAddedBySql_InBookDetails() throws Exception {
+        String etag = mockMvc.perform(get("/books/{id}", LEARNING_GO))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        UUID copy = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO inventory(id, book_id) VALUES (?, ?)", copy, LEARNING_GO);
+        try {
+            assertEquals(1, reconciler.reconcile());
+
+            mockMvc.perform(get("/books/{id}", LEARNING_GO).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.inventories[*].id", hasItem(copy.toString())));
+        } finally {
+            jdbcTemplate.update("DELETE FROM inventory WHERE id = ?", copy);
+            reconciler.reconcile();
+        }
+    }
+
+    private long indexedCopies(UUID bookId) {
+        return bookSearchService.search("react cookbook", null, 10).items().stream()
+                .filter(result -> result.id().equals(bookId))
+                .findFirst()
+                .orElseThrow()
+                .availableCopies();
+    }
+
+    private int availableCopies(UUID bookId) {
+        return jdbcTemplate.queryForObject("SELECT available_copies FROM book WHERE id = ?", Integer.class, bookId);
+    }
+
+    private int scannedCopies(UUID bookId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory WHERE book_id = ? AND user_id IS NULL",
+                Integer.class, bookId);
+    }
+}
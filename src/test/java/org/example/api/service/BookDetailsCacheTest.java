@@ -0,0 +1,161 @@
+package org.example.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.api.config.BorrowConfig;
+import org.example.api.config.CacheConfig;
+import org.example.api.dto.BookDetailsDTO;
+import org.example.api.dto.CacheStatsDTO;
+import org.example.api.entity.Book;
+import org.example.api.event.InventoryChangedEvent;
+import org.example.api.mapper.LibraryMapper;
+import org.example.api.repository.BookRepository;
+import org.example.api.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.event.TransactionalEventListenerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(
+        properties = {
+                "spring.liquibase.enabled=false",
+                "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration"
+        },
+        classes = {BookService.class, CacheConfig.class, BorrowConfig.class, BookCacheInvalidator.class, CacheStatsService.class,
+                CatalogVersions.class, TransactionalEventListenerFactory.class, LoanMetrics.class,
+                SimpleMeterRegistry.class}
+)
+class BookDetailsCacheTest {
+    @MockBean
+    private InventoryRepository inventoryRepository;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private LibraryMapper libraryMapper;
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    @MockBean
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CacheStatsService cacheStatsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    private UUID bookId;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCache(CacheConfig.BOOK_DETAILS).clear();
+        bookId = UUID.randomUUID();
+        Book book = new Book();
+        book.setId(bookId);
+        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
+        when(libraryMapper.toBookDetailsDTO(book))
+                .thenReturn(new BookDetailsDTO(bookId, "Test Book", "Test Author", null, List.of()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void getBookById_ShouldBeServedFromCache_OnSecondCall() {
+        bookService.getBookById(bookId);
+        bookService.getBookById(bookId);
+
+        verify(bookRepository, times(1)).findById(bookId);
+        CacheStatsDTO stats = cacheStatsService.getCacheStats().getFirst();
+        assertEquals(CacheConfig.BOOK_DETAILS, stats.name());
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    void inventoryChange_ShouldEvictOnlyAfterCommit() {
+        bookService.getBookById(bookId);
+        CatalogVersions.BookDetailsKey key = catalogVersions.bookDetailsKey(bookId);
+
+        eventPublisher.publishEvent(new InventoryChangedEvent(bookId, UUID.randomUUID()));
+        assertNotNull(cacheManager.getCache(CacheConfig.BOOK_DETAILS).get(key));
+        assertEquals(key.version(), catalogVersions.bookVersion(bookId));
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        assertNull(cacheManager.getCache(CacheConfig.BOOK_DETAILS).get(key));
+        assertTrue(catalogVersions.bookVersion(bookId) > key.version());
+    }
+
+    @Test
+    void getBookById_ShouldReload_WhenChangeCommitsWhileLoading() {
+        BookDetailsDTO stale = new BookDetailsDTO(bookId, "Stale Book", "Test Author", null, List.of());
+        Book book = new Book();
+        book.setId(bookId);
+        // The change commits after the row was read but before the details are stored in the cache
+        when(bookRepository.findById(bookId)).thenAnswer(invocation -> {
+            eventPublisher.publishEvent(new InventoryChangedEvent(bookId, UUID.randomUUID()));
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+            return Optional.of(book);
+        }).thenReturn(Optional.of(book));
+        when(libraryMapper.toBookDetailsDTO(book)).thenReturn(stale)
+                .thenReturn(new BookDetailsDTO(bookId, "Test Book", "Test Author", null, List.of()));
+
+        assertEquals("Stale Book", bookService.getBookById(bookId).title());
+
+        assertEquals("Test Book", bookService.getBookById(bookId).title());
+        verify(bookRepository, times(2)).findById(bookId);
+    }
+
+    @Test
+    void inventoryChange_ShouldKeepEntry_WhenRolledBack() {
+        bookService.getBookById(bookId);
+        long version = catalogVersions.catalogVersion();
+
+        eventPublisher.publishEvent(new InventoryChangedEvent(bookId, UUID.randomUUID()));
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNotNull(cacheManager.getCache(CacheConfig.BOOK_DETAILS).get(catalogVersions.bookDetailsKey(bookId)));
+        assertEquals(version, catalogVersions.catalogVersion());
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+        }
+        TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+    }
+}
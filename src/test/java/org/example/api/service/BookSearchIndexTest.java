@@ -0,0 +1,100 @@
+package org.example.api.service;
+
+import org.example.api.dto.BookSearchResultDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchIndexTest {
+    private final UUID goBook = UUID.randomUUID();
+    private final UUID javaBook = UUID.randomUUID();
+    private final UUID cafeBook = UUID.randomUUID();
+    private final UUID byJavaAuthor = UUID.randomUUID();
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = BookSearchIndex.builder()
+                .add(goBook, "Learning Go", "Jon Bodner", "go.jpg", 3, 2)
+                .add(javaBook, "A Functional Approach to Java", "Ben Weidig", "java.jpg", 2, 0)
+                .add(cafeBook, "Le Café Müller", "Zoë Ångström", "cafe.jpg", 1, 1)
+                .add(byJavaAuthor, "Islands", "Ann Java", "islands.jpg", 1, 1)
+                .build();
+    }
+
+    @Test
+    void tokens_ShouldFoldCaseAndAccents_AndSplitOnPunctuation() {
+        assertEquals(List.of("le", "cafe", "muller", "s", "menu"), SearchText.tokens("Le CAFÉ Müller's menu"));
+        assertEquals(List.of(), SearchText.tokens(" -- "));
+    }
+
+    @Test
+    void search_ShouldMatchFoldedTerms_InTitleAndAuthor() {
+        assertEquals(List.of(cafeBook), ids(index.search("cafe MULLER", 0, 10)));
+        assertEquals(List.of(cafeBook), ids(index.search("zoe angstrom", 0, 10)));
+    }
+
+    @Test
+    void search_ShouldRequireEveryTerm() {
+        assertEquals(List.of(goBook), ids(index.search("learning jon", 0, 10)));
+        assertEquals(List.of(), ids(index.search("learning java", 0, 10)));
+        assertEquals(List.of(), ids(index.search("unknown", 0, 10)));
+    }
+
+    @Test
+    void search_ShouldRankTitleMatchesAboveAuthorMatches() {
+        assertEquals(List.of(javaBook, byJavaAuthor), ids(index.search("java", 0, 10)));
+    }
+
+    @Test
+    void search_ShouldReturnRequestedRanks() {
+        BookSearchIndex.Builder builder = BookSearchIndex.builder();
+        List<UUID> books = IntStream.range(0, 25).mapToObj(i -> UUID.randomUUID()).toList();
+        for (int i = 0; i < books.size(); i++) {
+            builder.add(books.get(i), String.format("Cookbook %02d", i), "Author", null, 1, 1);
+        }
+        BookSearchIndex cookbooks = builder.build();
+
+        assertEquals(books.subList(0, 10), ids(cookbooks.search("cookbook", 0, 10)));
+        assertEquals(books.subList(20, 25), ids(cookbooks.search("cookbook", 20, 10)));
+        assertEquals(List.of(), ids(cookbooks.search("cookbook", 25, 10)));
+    }
+
+    @Test
+    void adjustAvailableCopies_ShouldShowInResults_AndStayWithinTotal() {
+        index.adjustAvailableCopies(goBook, -1);
+        assertEquals(1, index.search("go", 0, 1).getFirst().availableCopies());
+
+        index.adjustAvailableCopies(goBook, 10);
+        assertEquals(3, index.search("go", 0, 1).getFirst().availableCopies());
+
+        index.adjustAvailableCopies(UUID.randomUUID(), -1);
+    }
+
+    @Test
+    void intersect_ShouldMatchNaiveIntersection() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int[][] lists = new int[1 + random.nextInt(3)][];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = random.ints(random.nextInt(200), 0, 500).distinct().sorted().toArray();
+            }
+            int[] expected = Arrays.stream(lists[0])
+                    .filter(value -> Arrays.stream(lists).allMatch(list -> Arrays.binarySearch(list, value) >= 0))
+                    .toArray();
+
+            assertArrayEquals(expected, BookSearchIndex.intersect(lists));
+        }
+    }
+
+    private static List<UUID> ids(List<BookSearchResultDTO> results) {
+        return results.stream().map(BookSearchResultDTO::id).toList();
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.api.service;
+
+import org.example.api.dto.BookSearchResultDTO;
+import org.example.api.dto.BookSuggestionDTO;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.ReturnRequest;
+import org.example.api.event.AvailableCopiesChangedEvent;
+import org.example.api.exception.BadRequestException;
+import org.example.api.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the in-memory search follows committed loans and picks up books added to the catalog.
+ */
+@SpringBootTest(properties = "library.search.refresh-interval=1h")
+@ActiveProfiles("h2")
+class BookSearchServiceTest {
+    private static final UUID REACT_COOKBOOK = UUID.fromString("1b1248ca-14e0-4dc9-a0e7-e1eabdf02c36");
+    private static final UUID REACT_COOKBOOK_COPY = UUID.fromString("9430b459-8178-4137-aa00-7452ee966e16");
+    private static final UUID USER_ID = UUID.fromString("2e1273f4-f574-4807-929e-d7c002643981");
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void search_ShouldFollowCommittedLoans() {
+        long before = reactCookbook().availableCopies();
+
+        bookService.borrowBook(new BorrowRequest(USER_ID, REACT_COOKBOOK_COPY));
+        assertEquals(before - 1, reactCookbook().availableCopies());
+
+        bookService.returnBook(new ReturnRequest(USER_ID, REACT_COOKBOOK_COPY));
+        assertEquals(before, reactCookbook().availableCopies());
+    }
+
+    @Test
+    void refresh_ShouldIndexAddedBooks() {
+        UUID bookId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO book(id, author, image, title) VALUES (?, ?, ?, ?)",
+                bookId, "Mara Bos", "atomics.jpg", "Rust Atomics and Locks");
+        jdbcTemplate.update("INSERT INTO inventory(id, book_id) VALUES (?, ?)", UUID.randomUUID(), bookId);
+        try {
+            assertEquals(List.of(), bookSearchService.search("atomics", null, 10).items());
+            String catalogETag = catalogVersions.catalogETag();
+
+            bookSearchService.refresh();
+
+            assertNotEquals(catalogETag, catalogVersions.catalogETag());
+            List<BookSearchResultDTO> found = bookSearchService.search("rust ATOMICS", null, 10).items();
+            assertEquals(1, found.size());
+            assertEquals(1, found.getFirst().availableCopies());
+            assertEquals(List.of(new BookSuggestionDTO(BookSuggestionDTO.Type.TITLE, "Rust Atomics and Locks", bookId)),
+                    bookSearchService.suggest("rust at", 10));
+            assertEquals(List.of(new BookSuggestionDTO(BookSuggestionDTO.Type.AUTHOR, "Mara Bos", null)),
+                    bookSearchService.suggest("mara", 10));
+        } finally {
+            jdbcTemplate.update("DELETE FROM inventory WHERE book_id = ?", bookId);
+            jdbcTemplate.update("DELETE FROM book WHERE id = ?", bookId);
+            bookSearchService.refresh();
+        }
+    }
+
+    @Test
+    void refresh_ShouldCorrectAvailability_WhenCatalogUnchanged() {
+        long before = reactCookbook().availableCopies();
+        jdbcTemplate.update("UPDATE inventory SET user_id = ?, loan_date = CURRENT_TIMESTAMP WHERE id = ?",
+                USER_ID, REACT_COOKBOOK_COPY);
+        jdbcTemplate.update("UPDATE book SET available_copies = available_copies - 1 WHERE id = ?", REACT_COOKBOOK);
+        try {
+            assertEquals(before, reactCookbook().availableCopies());
+
+            bookSearchService.refresh();
+
+            assertEquals(before - 1, reactCookbook().availableCopies());
+        } finally {
+            jdbcTemplate.update("UPDATE inventory SET user_id = NULL, loan_date = NULL WHERE id = ?",
+                    REACT_COOKBOOK_COPY);
+            jdbcTemplate.update("UPDATE book SET available_copies = available_copies + 1 WHERE id = ?",
+                    REACT_COOKBOOK);
+            bookSearchService.refresh();
+        }
+        assertEquals(before, reactCookbook().availableCopies());
+    }
+
+    @Test
+    void rebuild_ShouldCountLoanOnce_WhenItsEventArrivesDuringTheRead() {
+        long before = reactCookbook().availableCopies();
+        // The loan commits before the rebuild reads the catalog, but its event is delivered during the read
+        BookSearchService[] service = new BookSearchService[1];
+        BookRepository repository = (BookRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{BookRepository.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(bookRepository, args);
+                    return method.getName().equals("streamCatalog") ? ((Stream<?>) result).onClose(() ->
+                            service[0].onAvailableCopiesChanged(new AvailableCopiesChangedEvent(REACT_COOKBOOK, -1)))
+                            : result;
+                });
+        service[0] = new BookSearchService(repository, transactionTemplate, catalogVersions);
+        jdbcTemplate.update("UPDATE inventory SET user_id = ?, loan_date = CURRENT_TIMESTAMP WHERE id = ?",
+                USER_ID, REACT_COOKBOOK_COPY);
+        jdbcTemplate.update("UPDATE book SET available_copies = available_copies - 1 WHERE id = ?", REACT_COOKBOOK);
+        try {
+            service[0].refresh();
+
+            assertEquals(before - 1, reactCookbook(service[0]).availableCopies());
+        } finally {
+            jdbcTemplate.update("UPDATE inventory SET user_id = NULL, loan_date = NULL WHERE id = ?",
+                    REACT_COOKBOOK_COPY);
+            jdbcTemplate.update("UPDATE book SET available_copies = available_copies + 1 WHERE id = ?",
+                    REACT_COOKBOOK);
+        }
+    }
+
+    @Test
+    void suggest_ShouldReturnNothing_WhenQueryFoldsToNothing() {
+        assertEquals(List.of(), bookSearchService.suggest("!!!", 10));
+    }
+
+    @Test
+    void suggest_ShouldRejectBlankQueryAndOversizedLimit() {
+        assertThrows(BadRequestException.class, () -> bookSearchService.suggest(" ", 5));
+        assertThrows(BadRequestException.class,
+                () -> bookSearchService.suggest("re", BookSuggestionTrie.MAX_COMPLETIONS + 1));
+    }
+
+    private BookSearchResultDTO reactCookbook() {
+        return reactCookbook(bookSearchService);
+    }
+
+    private static BookSearchResultDTO reactCookbook(BookSearchService bookSearchService) {
+        return bookSearchService.search("react cookbook", null, 10).items().stream()
+                .filter(result -> result.id().equals(REACT_COOKBOOK))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -1,15 +1,27 @@
 package org.example.api.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.api.config.BorrowConfig;
+import org.example.api.dto.BatchLoanRequest;
+import org.example.api.dto.BookAvailabilityDTO;
 import org.example.api.dto.BookDetailsDTO;
+import org.example.api.dto.BorrowAnyRequest;
 import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.InventoryDTO;
+import org.example.api.dto.LoanItemResultDTO;
+import org.example.api.dto.PageDTO;
 import org.example.api.dto.ReturnRequest;
 import org.example.api.entity.Book;
 import org.example.api.entity.Inventory;
 import org.example.api.entity.User;
+import org.example.api.event.InventoryChangedEvent;
+import org.example.api.exception.BadRequestException;
 import org.example.api.exception.ConflictException;
 import org.example.api.exception.ResourceNotFoundException;
 import org.example.api.mapper.LibraryMapper;
+import org.example.api.repository.BookInventoryRow;
 import org.example.api.repository.InventoryRepository;
+import org.example.api.repository.UserIdentity;
 import org.example.api.repository.BookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -19,16 +31,21 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.dao.PessimisticLockingFailureException;
-import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 
-import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest(
@@ -36,9 +53,10 @@ import static org.mockito.Mockito.*;
                 "spring.liquibase.enabled=false",
                 "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration"
         },
-        classes = BookService.class
+        classes = {BookService.class, BorrowConfig.class,
+                LoanMetrics.class, SimpleMeterRegistry.class}
 )
-@EnableRetry
+@RecordApplicationEvents
 class BookServiceTest {
     @MockBean
     private InventoryRepository inventoryRepository;
@@ -55,6 +73,9 @@ class BookServiceTest {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
     private UUID bookId;
     private UUID inventoryId;
     private UUID userId;
@@ -86,22 +107,63 @@ class BookServiceTest {
     @DisplayName("Get Books Tests")
     class GetBooksTests {
         @Test
-        void getAllBooks_ShouldReturnAllBooks() {
-            List<Book> books = List.of(book);
+        void getBooks_ShouldReturnLastPage_WhenNoMoreBooks() {
             BookDetailsDTO dto = new BookDetailsDTO(bookId, "Test Book", "Test Author", "image.jpg", List.of());
 
-            when(bookRepository.findAll()).thenReturn(books);
+            when(bookRepository.findPageIds(Limit.of(3))).thenReturn(List.of(bookId));
+            when(bookRepository.findWithInventoriesByIdInOrderByIdAsc(List.of(bookId))).thenReturn(List.of(book));
             when(libraryMapper.toBookDetailsDTO(book)).thenReturn(dto);
 
-            List<BookDetailsDTO> result = bookService.getAllBooks();
+            PageDTO<BookDetailsDTO> result = bookService.getBooks(null, 2);
 
-            assertFalse(result.isEmpty());
-            assertEquals(1, result.size());
-            assertEquals(bookId, result.getFirst().id());
-            verify(bookRepository).findAll();
+            assertEquals(1, result.items().size());
+            assertEquals(bookId, result.items().getFirst().id());
+            assertNull(result.nextCursor());
+            verify(bookRepository).findPageIds(Limit.of(3));
             verify(libraryMapper).toBookDetailsDTO(book);
         }
 
+        @Test
+        void getBooks_ShouldReturnCursorOfLastItem_WhenMoreBooksExist() {
+            UUID secondId = UUID.randomUUID();
+            BookDetailsDTO dto = new BookDetailsDTO(bookId, "Test Book", "Test Author", "image.jpg", List.of());
+
+            when(bookRepository.findPageIds(Limit.of(2))).thenReturn(List.of(bookId, secondId));
+            when(bookRepository.findWithInventoriesByIdInOrderByIdAsc(List.of(bookId))).thenReturn(List.of(book));
+            when(libraryMapper.toBookDetailsDTO(book)).thenReturn(dto);
+
+            PageDTO<BookDetailsDTO> result = bookService.getBooks(null, 1);
+
+            assertEquals(1, result.items().size());
+            assertEquals(bookId, PageCursor.decode(result.nextCursor()));
+            verify(bookRepository).findWithInventoriesByIdInOrderByIdAsc(List.of(bookId));
+        }
+
+        @Test
+        void getBooks_ShouldSeekPastCursor() {
+            when(bookRepository.findPageIdsAfter(bookId, Limit.of(11))).thenReturn(List.of());
+
+            PageDTO<BookDetailsDTO> result = bookService.getBooks(PageCursor.encode(bookId), 10);
+
+            assertTrue(result.items().isEmpty());
+            assertNull(result.nextCursor());
+            verify(bookRepository).findPageIdsAfter(bookId, Limit.of(11));
+            verify(bookRepository, never()).findWithInventoriesByIdInOrderByIdAsc(any());
+        }
+
+        @Test
+        void getBooks_ShouldThrowException_WhenCursorInvalid() {
+            assertThrows(BadRequestException.class, () -> bookService.getBooks("not-a-cursor!", 10));
+            verifyNoInteractions(bookRepository);
+        }
+
+        @Test
+        void getBooks_ShouldThrowException_WhenLimitOutOfRange() {
+            assertThrows(BadRequestException.class, () -> bookService.getBooks(null, 0));
+            assertThrows(BadRequestException.class, () -> bookService.getBooks(null, BookService.MAX_PAGE_SIZE + 1));
+            verifyNoInteractions(bookRepository);
+        }
+
         @Test
         void getBookById_ShouldReturnBook_WhenExists() {
             BookDetailsDTO dto = new BookDetailsDTO(bookId, "Test Book", "Test Author", "image.jpg", List.of());
@@ -127,6 +189,92 @@ class BookServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Availability Tests")
+    class AvailabilityTests {
+        @Test
+        void getAvailability_ShouldReturnCursor_WhenMoreBooksExist() {
+            BookAvailabilityDTO first = new BookAvailabilityDTO(bookId, 3, 1, Instant.now());
+            BookAvailabilityDTO second = new BookAvailabilityDTO(UUID.randomUUID(), 2, 2, null);
+            when(bookRepository.summarizeAvailability(Limit.of(2))).thenReturn(List.of(first, second));
+
+            PageDTO<BookAvailabilityDTO> result = bookService.getAvailability(null, 1);
+
+            assertEquals(List.of(first), result.items());
+            assertEquals(bookId, PageCursor.decode(result.nextCursor()));
+        }
+
+        @Test
+        void getAvailability_ShouldSeekPastCursor() {
+            BookAvailabilityDTO summary = new BookAvailabilityDTO(UUID.randomUUID(), 2, 2, null);
+            when(bookRepository.summarizeAvailabilityAfter(bookId, Limit.of(6))).thenReturn(List.of(summary));
+
+            PageDTO<BookAvailabilityDTO> result = bookService.getAvailability(PageCursor.encode(bookId), 5);
+
+            assertEquals(List.of(summary), result.items());
+            assertNull(result.nextCursor());
+        }
+
+        @Test
+        void getAvailability_ShouldThrowException_WhenLimitOutOfRange() {
+            assertThrows(BadRequestException.class,
+                    () -> bookService.getAvailability(null, BookService.MAX_AVAILABILITY_PAGE_SIZE + 1));
+            verifyNoInteractions(bookRepository);
+        }
+
+        @Test
+        void getBookAvailability_ShouldReturnSummary_WhenBookHasCopies() {
+            BookAvailabilityDTO summary = new BookAvailabilityDTO(bookId, 3, 1, Instant.now());
+            when(bookRepository.summarizeAvailabilityByBookId(bookId)).thenReturn(Optional.of(summary));
+
+            assertEquals(summary, bookService.getBookAvailability(bookId));
+        }
+
+        @Test
+        void getBookAvailability_ShouldThrowException_WhenBookNotFound() {
+            when(bookRepository.summarizeAvailabilityByBookId(bookId)).thenReturn(Optional.empty());
+
+            assertThrows(ResourceNotFoundException.class, () -> bookService.getBookAvailability(bookId));
+        }
+    }
+
+    @Nested
+    @DisplayName("Export Catalog Tests")
+    class ExportCatalogTests {
+        @Test
+        void exportCatalog_ShouldEmitOneBookPerConsecutiveGroupOfRows() {
+            UUID otherBookId = UUID.randomUUID();
+            BookInventoryRow firstCopy = new BookInventoryRow(bookId, "Test Book", "Test Author", null,
+                    UUID.randomUUID(), null, null, null, null);
+            BookInventoryRow secondCopy = new BookInventoryRow(bookId, "Test Book", "Test Author", null,
+                    UUID.randomUUID(), null, null, null, null);
+            BookInventoryRow otherBook = new BookInventoryRow(otherBookId, "Other", "Other Author", null,
+                    null, null, null, null, null);
+            BookDetailsDTO first = new BookDetailsDTO(bookId, "Test Book", "Test Author", null, List.of());
+            BookDetailsDTO second = new BookDetailsDTO(otherBookId, "Other", "Other Author", null, List.of());
+
+            when(bookRepository.streamCatalog()).thenReturn(Stream.of(firstCopy, secondCopy, otherBook));
+            when(libraryMapper.toBookDetailsDTOFromRows(List.of(firstCopy, secondCopy))).thenReturn(first);
+            when(libraryMapper.toBookDetailsDTOFromRows(List.of(otherBook))).thenReturn(second);
+
+            List<BookDetailsDTO> exported = new ArrayList<>();
+            bookService.exportCatalog(exported::add);
+
+            assertEquals(List.of(first, second), exported);
+        }
+
+        @Test
+        void exportCatalog_ShouldEmitNothing_WhenCatalogEmpty() {
+            when(bookRepository.streamCatalog()).thenReturn(Stream.empty());
+
+            List<BookDetailsDTO> exported = new ArrayList<>();
+            bookService.exportCatalog(exported::add);
+
+            assertTrue(exported.isEmpty());
+            verify(libraryMapper, never()).toBookDetailsDTOFromRows(anyList());
+        }
+    }
+
     @Nested
     @DisplayName("Borrow Book Tests")
     class BorrowBookTests {
@@ -136,7 +284,8 @@ class BookServiceTest {
 
             when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
                     .thenReturn(Optional.of(inventory));
-            when(userService.getUserById(userId)).thenReturn(user);
+            when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+            when(userService.getUserReference(userId)).thenReturn(user);
 
             bookService.borrowBook(request);
 
@@ -146,6 +295,9 @@ class BookServiceTest {
 
             assertEquals(user, savedInventory.getUser());
             assertNotNull(savedInventory.getLoanDate());
+            verify(bookRepository).adjustAvailableCopies(bookId, -1);
+            assertEquals(List.of(new InventoryChangedEvent(bookId, inventoryId)),
+                    applicationEvents.stream(InventoryChangedEvent.class).toList());
         }
 
         @Test
@@ -158,6 +310,7 @@ class BookServiceTest {
 
             assertThrows(ConflictException.class, () -> bookService.borrowBook(request));
             verify(inventoryRepository, never()).save(any());
+            assertEquals(0, applicationEvents.stream(InventoryChangedEvent.class).count());
         }
 
         @Test
@@ -169,40 +322,98 @@ class BookServiceTest {
 
             assertThrows(ResourceNotFoundException.class, () -> bookService.borrowBook(request));
             verify(inventoryRepository, never()).save(any());
-            verify(userService, never()).getUserById(any());
+            verify(userService, never()).getUserIdentity(any());
         }
+    }
 
+    @Nested
+    @DisplayName("Borrow Any Copy Tests")
+    class BorrowAnyCopyTests {
         @Test
-        void borrowBook_ShouldRetryAndSucceed() {
-            BorrowRequest request = new BorrowRequest(userId, inventoryId);
-
-            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
-                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
-                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
-                    .thenReturn(Optional.of(inventory));
-            when(userService.getUserById(userId)).thenReturn(user);
+        void borrowAnyCopy_ShouldClaimFirstUnlockedCopy() {
+            InventoryDTO dto = new InventoryDTO(inventoryId, Instant.now(), null);
+            when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+            when(userService.getUserReference(userId)).thenReturn(user);
+            when(inventoryRepository.findAvailableSkipLocked(bookId, Limit.of(1))).thenReturn(List.of(inventory));
+            when(libraryMapper.toInventoryDTO(inventory)).thenReturn(dto);
+
+            InventoryDTO result = bookService.borrowAnyCopy(new BorrowAnyRequest(userId, bookId));
+
+            assertEquals(dto, result);
+            assertEquals(user, inventory.getUser());
+            assertNotNull(inventory.getLoanDate());
+            verify(inventoryRepository).save(inventory);
+            assertEquals(List.of(new InventoryChangedEvent(bookId, inventoryId)),
+                    applicationEvents.stream(InventoryChangedEvent.class).toList());
+        }
 
-            bookService.borrowBook(request);
+        @Test
+        void borrowAnyCopy_ShouldThrowConflict_WhenNoCopyAvailable() {
+            when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+            when(inventoryRepository.findAvailableSkipLocked(bookId, Limit.of(1))).thenReturn(List.of());
+            when(bookRepository.existsById(bookId)).thenReturn(true);
 
-            verify(inventoryRepository, times(3)).findByIdWithPessimisticLock(inventoryId);
+            BorrowAnyRequest request = new BorrowAnyRequest(userId, bookId);
+            assertThrows(ConflictException.class, () -> bookService.borrowAnyCopy(request));
+            verify(inventoryRepository, never()).save(any());
+            assertEquals(0, applicationEvents.stream(InventoryChangedEvent.class).count());
+        }
 
-            ArgumentCaptor<Inventory> inventoryCaptor = ArgumentCaptor.forClass(Inventory.class);
-            verify(inventoryRepository).save(inventoryCaptor.capture());
-            Inventory savedInventory = inventoryCaptor.getValue();
+        @Test
+        void borrowAnyCopy_ShouldThrowNotFound_WhenBookMissing() {
+            when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+            when(inventoryRepository.findAvailableSkipLocked(bookId, Limit.of(1))).thenReturn(List.of());
+            when(bookRepository.existsById(bookId)).thenReturn(false);
 
-            assertEquals(user, savedInventory.getUser());
-            assertNotNull(savedInventory.getLoanDate());
+            BorrowAnyRequest request = new BorrowAnyRequest(userId, bookId);
+            assertThrows(ResourceNotFoundException.class, () -> bookService.borrowAnyCopy(request));
         }
+    }
 
+    @Nested
+    @DisplayName("Batch Loan Tests")
+    class BatchLoanTests {
         @Test
-        void borrowBook_ShouldFailAfterMaxRetries() {
-            BorrowRequest request = new BorrowRequest(userId, inventoryId);
-
-            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
-                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()));
+        void borrowBooks_ShouldReportEachCopy_AndSaveOnlyChangedOnes() {
+            Inventory borrowed = new Inventory(UUID.randomUUID(), book, new User(), Instant.now());
+            UUID missingId = UUID.randomUUID();
+            List<UUID> ids = List.of(inventoryId, borrowed.getId(), missingId, inventoryId);
+            when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+            when(userService.getUserReference(userId)).thenReturn(user);
+            when(inventoryRepository.findAllByIdWithPessimisticLock(Set.copyOf(ids)))
+                    .thenReturn(List.of(inventory, borrowed));
+
+            List<LoanItemResultDTO> results = bookService.borrowBooks(new BatchLoanRequest(userId, ids));
+
+            assertEquals(List.of(LoanItemResultDTO.Status.OK, LoanItemResultDTO.Status.CONFLICT,
+                            LoanItemResultDTO.Status.NOT_FOUND, LoanItemResultDTO.Status.CONFLICT),
+                    results.stream().map(LoanItemResultDTO::status).toList());
+            assertEquals(ids, results.stream().map(LoanItemResultDTO::inventoryId).toList());
+            assertEquals(user, inventory.getUser());
+            verify(inventoryRepository).saveAll(List.of(inventory));
+            assertEquals(List.of(new InventoryChangedEvent(bookId, inventoryId)),
+                    applicationEvents.stream(InventoryChangedEvent.class).toList());
+        }
 
-            assertThrows(ConflictException.class, () -> bookService.borrowBook(request));
-            verify(inventoryRepository, times(3)).findByIdWithPessimisticLock(inventoryId);
+        @Test
+        void returnBooks_ShouldRejectCopiesOfOtherUsers() {
+            inventory.setUser(user);
+            inventory.setLoanDate(Instant.now());
+            User otherUser = new User();
+            otherUser.setId(UUID.randomUUID());
+            Inventory otherLoan = new Inventory(UUID.randomUUID(), book, otherUser, Instant.now());
+            List<UUID> ids = List.of(otherLoan.getId(), inventoryId);
+            when(inventoryRepository.findAllByIdWithPessimisticLock(Set.copyOf(ids)))
+                    .thenReturn(List.of(inventory, otherLoan));
+
+            List<LoanItemResultDTO> results = bookService.returnBooks(new BatchLoanRequest(userId, ids));
+
+            assertEquals(new LoanItemResultDTO(otherLoan.getId(), LoanItemResultDTO.Status.CONFLICT,
+                    "Book can't be returned by another user"), results.get(0));
+            assertEquals(new LoanItemResultDTO(inventoryId, LoanItemResultDTO.Status.OK, null), results.get(1));
+            assertNull(inventory.getUser());
+            assertEquals(otherUser, otherLoan.getUser());
+            verify(inventoryRepository).saveAll(List.of(inventory));
         }
     }
 
@@ -225,6 +436,9 @@ class BookServiceTest {
 
             assertNull(savedInventory.getUser());
             assertNull(savedInventory.getLoanDate());
+            verify(bookRepository).adjustAvailableCopies(bookId, 1);
+            assertEquals(List.of(new InventoryChangedEvent(bookId, inventoryId)),
+                    applicationEvents.stream(InventoryChangedEvent.class).toList());
         }
 
         @Test
@@ -251,37 +465,5 @@ class BookServiceTest {
             assertThrows(ConflictException.class, () -> bookService.returnBook(request));
             verify(inventoryRepository, never()).save(any());
         }
-
-        @Test
-        void returnBook_ShouldRetryAndSucceed() {
-            ReturnRequest request = new ReturnRequest(userId, inventoryId);
-            inventory.setUser(user);
-
-            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
-                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
-                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
-                    .thenReturn(Optional.of(inventory));
-
-            bookService.returnBook(request);
-
-            verify(inventoryRepository, times(3)).findByIdWithPessimisticLock(inventoryId);
-            ArgumentCaptor<Inventory> inventoryCaptor = ArgumentCaptor.forClass(Inventory.class);
-            verify(inventoryRepository).save(inventoryCaptor.capture());
-
-            Inventory savedInventory = inventoryCaptor.getValue();
-            assertNull(savedInventory.getUser());
-            assertNull(savedInventory.getLoanDate());
-        }
-
-        @Test
-        void returnBook_ShouldFailAfterMaxRetries() {
-            ReturnRequest request = new ReturnRequest(userId, inventoryId);
-
-            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
-                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()));
-
-            assertThrows(ConflictException.class, () -> bookService.returnBook(request));
-            verify(inventoryRepository, times(3)).findByIdWithPessimisticLock(inventoryId);
-        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,109 @@
+package org.example.api.service;
+
+import org.example.api.dto.BookSuggestionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSuggestionTrieTest {
+    private final UUID learningGo = UUID.randomUUID();
+    private final UUID learningJava = UUID.randomUUID();
+    private final UUID cafe = UUID.randomUUID();
+
+    private BookSuggestionTrie trie() {
+        return BookSuggestionTrie.builder()
+                .add(learningGo, "Learning Go", "Jon Bodner", 3)
+                .add(learningJava, "Learning Java", "Jon Bodner", 5)
+                .add(cafe, "Le Café", "Zoë Ångström", 1)
+                .build();
+    }
+
+    @Test
+    void suggest_ShouldCompleteFoldedPrefix_BestFirst() {
+        assertEquals(List.of(
+                        new BookSuggestionDTO(BookSuggestionDTO.Type.TITLE, "Learning Java", learningJava),
+                        new BookSuggestionDTO(BookSuggestionDTO.Type.TITLE, "Learning Go", learningGo)),
+                trie().suggest("LEARN", 10));
+        assertEquals(List.of(new BookSuggestionDTO(BookSuggestionDTO.Type.TITLE, "Le Café", cafe)),
+                trie().suggest("le ca", 10));
+        assertEquals(List.of(new BookSuggestionDTO(BookSuggestionDTO.Type.AUTHOR, "Zoë Ångström", null)),
+                trie().suggest("zoe a", 10));
+    }
+
+    @Test
+    void suggest_ShouldMergeAuthors_AndSumTheirWeight() {
+        BookSuggestionTrie trie = BookSuggestionTrie.builder()
+                .add(learningGo, "Learning Go", "Jon Bodner", 3)
+                .add(learningJava, "Learning Java", "Jon Bodner", 5)
+                .add(cafe, "Jon's Guide", "Someone Else", 6)
+                .build();
+
+        assertEquals(List.of("Jon Bodner", "Jon's Guide"), texts(trie.suggest("jon", 10)));
+        assertEquals(5, trie.size());
+    }
+
+    @Test
+    void suggest_ShouldKeepTrailingSeparator_AndReturnNothingForUnknownPrefix() {
+        BookSuggestionTrie trie = BookSuggestionTrie.builder()
+                .add(UUID.randomUUID(), "Go", "A", 1)
+                .add(UUID.randomUUID(), "Go in Action", "B", 1)
+                .add(UUID.randomUUID(), "Gophers", "C", 9)
+                .build();
+
+        assertEquals(List.of("Gophers", "Go", "Go in Action"), texts(trie.suggest("go", 10)));
+        assertEquals(List.of("Go in Action"), texts(trie.suggest("go ", 10)));
+        assertEquals(List.of(), trie.suggest("rust", 10));
+        assertEquals(List.of(), trie.suggest("!!!", 10));
+        assertEquals(List.of(), BookSuggestionTrie.builder().build().suggest("go", 10));
+    }
+
+    @Test
+    void find_ShouldStopInsideAnEdgeLabel() {
+        BookSuggestionTrie trie = trie();
+
+        int node = trie.find("learning j");
+        assertTrue(node >= 0);
+        assertEquals(1, trie.completionCount(node));
+        assertEquals(trie.find("learning java"), node);
+        assertEquals(-1, trie.find("learning javas"));
+    }
+
+    @Test
+    void suggest_ShouldMatchBruteForceTopCompletions() {
+        Random random = new Random(7);
+        String[] words = {"go", "golang", "java", "javascript", "learning", "lean", "rust", "ruby", "cook", "cookbook"};
+        BookSuggestionTrie.Builder builder = BookSuggestionTrie.builder();
+        List<String[]> titles = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String title = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + (random.nextBoolean() ? " " + i : "");
+            int copies = random.nextInt(20);
+            builder.add(UUID.randomUUID(), title, null, copies);
+            titles.add(new String[]{title, Integer.toString(copies)});
+        }
+        BookSuggestionTrie trie = builder.build();
+
+        for (String prefix : List.of("g", "go", "go ", "java", "javas", "learning c", "c", "r", "ru", "rust 1")) {
+            List<String> expected = titles.stream()
+                    .filter(title -> title[0].startsWith(prefix))
+                    .sorted(Comparator.<String[]>comparingInt(title -> -Integer.parseInt(title[1]))
+                            .thenComparingInt(title -> title[0].length())
+                            .thenComparing(title -> title[0]))
+                    .limit(BookSuggestionTrie.MAX_COMPLETIONS)
+                    .map(title -> title[0])
+                    .toList();
+
+            assertEquals(expected, texts(trie.suggest(prefix, BookSuggestionTrie.MAX_COMPLETIONS)), prefix);
+        }
+    }
+
+    private static List<String> texts(List<BookSuggestionDTO> suggestions) {
+        return suggestions.stream().map(BookSuggestionDTO::text).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.api.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.api.config.CacheConfig;
+import org.example.api.dto.BookDetailsDTO;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.ReturnRequest;
+import org.example.api.entity.Inventory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that a conditional loan evicts only the lent copy and its book's copy list from the second-level
+ * cache, leaving the entries of other books warm. The lent copy is returned after each test.
+ */
+@SpringBootTest(properties = "library.borrow.mode=conditional")
+@ActiveProfiles("h2")
+class ConditionalBorrowCacheTest {
+    private static final UUID TERRAFORM = UUID.fromString("625e265c-30fb-4dc8-98a6-c5e1734a4e08");
+    private static final UUID REACT_COOKBOOK = UUID.fromString("1b1248ca-14e0-4dc9-a0e7-e1eabdf02c36");
+    private static final UUID REACT_COOKBOOK_COPY = UUID.fromString("9430b459-8178-4137-aa00-7452ee966e16");
+    private static final UUID USER_ID = UUID.fromString("2e1273f4-f574-4807-929e-d7c002643981");
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+    private boolean lent;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void returnLentCopy() {
+        if (lent) {
+            bookService.returnBook(new ReturnRequest(USER_ID, REACT_COOKBOOK_COPY));
+        }
+    }
+
+    @Test
+    void borrowBook_ShouldKeepOtherBooksCached() {
+        getBookById(TERRAFORM);
+        getBookById(REACT_COOKBOOK);
+
+        bookService.borrowBook(new BorrowRequest(USER_ID, REACT_COOKBOOK_COPY));
+        lent = true;
+
+        assertFalse(entityManagerFactory.getCache().contains(Inventory.class, REACT_COOKBOOK_COPY));
+        statistics.clear();
+        getBookById(TERRAFORM);
+        assertEquals(0, statistics.getPrepareStatementCount(), "copies of other books stay cached");
+    }
+
+    @Test
+    void borrowBook_ShouldShowTheLoan_InCachedBookDetails() {
+        getBookById(REACT_COOKBOOK);
+
+        bookService.borrowBook(new BorrowRequest(USER_ID, REACT_COOKBOOK_COPY));
+        lent = true;
+
+        assertTrue(getBookById(REACT_COOKBOOK).inventories().stream()
+                .anyMatch(copy -> REACT_COOKBOOK_COPY.equals(copy.id())
+                        && copy.user() != null && USER_ID.equals(copy.user().id())));
+    }
+
+    private BookDetailsDTO getBookById(UUID bookId) {
+        cacheManager.getCache(CacheConfig.BOOK_DETAILS).clear();
+        return bookService.getBookById(bookId);
+    }
+}
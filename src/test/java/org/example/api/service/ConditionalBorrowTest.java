@@ -0,0 +1,149 @@
+package org.example.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.api.config.BorrowConfig;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.ReturnRequest;
+import org.example.api.entity.Book;
+import org.example.api.entity.Inventory;
+import org.example.api.entity.User;
+import org.example.api.event.InventoryChangedEvent;
+import org.example.api.exception.ConflictException;
+import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.mapper.LibraryMapper;
+import org.example.api.repository.BookRepository;
+import org.example.api.repository.InventoryRepository;
+import org.example.api.repository.UserIdentity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(
+        properties = {
+                "spring.liquibase.enabled=false",
+                "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+                "library.borrow.mode=conditional"
+        },
+        classes = {BookService.class, BorrowConfig.class,
+                LoanMetrics.class, SimpleMeterRegistry.class}
+)
+@RecordApplicationEvents
+class ConditionalBorrowTest {
+    @MockBean
+    private InventoryRepository inventoryRepository;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private LibraryMapper libraryMapper;
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    private UUID bookId;
+    private UUID inventoryId;
+    private UUID userId;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        bookId = UUID.randomUUID();
+        inventoryId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+
+        Book book = new Book();
+        book.setId(bookId);
+
+        inventory = new Inventory();
+        inventory.setId(inventoryId);
+        inventory.setBook(book);
+    }
+
+    @Test
+    void borrowBook_ShouldUpdateWithoutLocking_WhenBookAvailable() {
+        when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+        when(inventoryRepository.borrowIfAvailable(eq(inventoryId), eq(userId), any(Instant.class))).thenReturn(1);
+        when(inventoryRepository.findBookIdById(inventoryId)).thenReturn(Optional.of(bookId));
+
+        bookService.borrowBook(new BorrowRequest(userId, inventoryId));
+
+        verify(inventoryRepository, never()).findByIdWithPessimisticLock(any());
+        verify(inventoryRepository, never()).save(any());
+        verify(bookRepository).adjustAvailableCopies(bookId, -1);
+        assertEquals(List.of(new InventoryChangedEvent(bookId, inventoryId)),
+                applicationEvents.stream(InventoryChangedEvent.class).toList());
+    }
+
+    @Test
+    void borrowBook_ShouldThrowConflict_WhenNoRowUpdated() {
+        inventory.setUser(new User());
+        when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+        when(inventoryRepository.borrowIfAvailable(eq(inventoryId), eq(userId), any(Instant.class))).thenReturn(0);
+        when(inventoryRepository.findById(inventoryId)).thenReturn(Optional.of(inventory));
+
+        BorrowRequest request = new BorrowRequest(userId, inventoryId);
+        assertThrows(ConflictException.class, () -> bookService.borrowBook(request));
+        verify(inventoryRepository, times(1)).borrowIfAvailable(any(), any(), any());
+        verify(bookRepository, never()).adjustAvailableCopies(any(), anyInt());
+        assertEquals(0, applicationEvents.stream(InventoryChangedEvent.class).count());
+    }
+
+    @Test
+    void borrowBook_ShouldThrowNotFound_WhenInventoryMissing() {
+        when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+        when(inventoryRepository.borrowIfAvailable(eq(inventoryId), eq(userId), any(Instant.class))).thenReturn(0);
+        when(inventoryRepository.findById(inventoryId)).thenReturn(Optional.empty());
+
+        BorrowRequest request = new BorrowRequest(userId, inventoryId);
+        assertThrows(ResourceNotFoundException.class, () -> bookService.borrowBook(request));
+    }
+
+    @Test
+    void returnBook_ShouldUpdateWithoutLocking_WhenBorrowedByUser() {
+        when(inventoryRepository.returnIfBorrowedBy(inventoryId, userId)).thenReturn(1);
+        when(inventoryRepository.findBookIdById(inventoryId)).thenReturn(Optional.of(bookId));
+
+        bookService.returnBook(new ReturnRequest(userId, inventoryId));
+
+        verify(inventoryRepository, never()).findByIdWithPessimisticLock(any());
+        verify(inventoryRepository, never()).findById(any());
+        verify(bookRepository).adjustAvailableCopies(bookId, 1);
+        assertEquals(List.of(new InventoryChangedEvent(bookId, inventoryId)),
+                applicationEvents.stream(InventoryChangedEvent.class).toList());
+    }
+
+    @Test
+    void returnBook_ShouldThrowConflict_WhenBorrowedByDifferentUser() {
+        User differentUser = new User();
+        differentUser.setId(UUID.randomUUID());
+        inventory.setUser(differentUser);
+        when(inventoryRepository.returnIfBorrowedBy(inventoryId, userId)).thenReturn(0);
+        when(inventoryRepository.findById(inventoryId)).thenReturn(Optional.of(inventory));
+
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> bookService.returnBook(new ReturnRequest(userId, inventoryId)));
+        assertEquals("Book can't be returned by another user", exception.getMessage());
+        assertEquals(0, applicationEvents.stream(InventoryChangedEvent.class).count());
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.api.config.LibraryBorrowProperties;
+import org.example.api.dto.LockStripeStatsDTO;
+import org.example.api.exception.ConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InventoryLocksTest {
+    private InventoryLocks inventoryLocks;
+    private UUID inventoryId;
+
+    @BeforeEach
+    void setUp() {
+        LibraryBorrowProperties properties = new LibraryBorrowProperties(LibraryBorrowProperties.Mode.PESSIMISTIC,
+                new LibraryBorrowProperties.Async(1, 1, Duration.ofMinutes(1), 100),
+                new LibraryBorrowProperties.Concurrency(8, Duration.ofSeconds(2)),
+                new LibraryBorrowProperties.Retry(3, Duration.ofMillis(10), Duration.ofMillis(40), 2,
+                        Duration.ofSeconds(1)),
+                new LibraryBorrowProperties.Lock(16, Duration.ofMillis(100)), true);
+        inventoryLocks = new InventoryLocks(properties, new LoanMetrics(new SimpleMeterRegistry()));
+        inventoryId = UUID.randomUUID();
+    }
+
+    @Test
+    void withLock_ShouldRunAction_AndRecordAcquisition() {
+        assertEquals("done", inventoryLocks.withLock(inventoryId, () -> "done"));
+
+        List<LockStripeStatsDTO> stats = inventoryLocks.getStats();
+        assertEquals(1, stats.size());
+        assertEquals(1, stats.getFirst().acquisitions());
+        assertFalse(stats.getFirst().locked());
+    }
+
+    @Test
+    void withLock_ShouldThrowConflict_WhenCopyStaysBusy() throws Exception {
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> inventoryLocks.withLock(inventoryId, () -> {
+            held.countDown();
+            awaitQuietly(release);
+            return null;
+        }));
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+
+        ConflictException exception = assertThrows(ConflictException.class,
+                () -> inventoryLocks.withLock(inventoryId, () -> "never"));
+        assertEquals("The copy is busy. Please try again later.", exception.getMessage());
+
+        LockStripeStatsDTO stats = inventoryLocks.getStats().getFirst();
+        assertTrue(stats.locked());
+        assertEquals(1, stats.timeouts());
+        assertTrue(stats.maxWaitMillis() >= 100);
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void getStats_ShouldOmitIdleStripes() {
+        assertTrue(inventoryLocks.getStats().isEmpty());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.api.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the timeout a loan attempt's transaction gets. H2 ignores query timeouts while waiting for a
+ * row lock, so the effect on a blocked attempt can only be seen against PostgreSQL.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class LoanAttemptTimeoutsTest {
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void transaction_ShouldTimeOutAtAttemptDeadline() {
+        long deadline = System.nanoTime() + Duration.ofMillis(2500).toNanos();
+
+        int remaining = LoanAttemptTimeouts.within(deadline, () -> transactionTemplate.execute(
+                status -> remainingTimeout()));
+
+        assertTrue(remaining >= 2 && remaining <= 3, "remaining: " + remaining);
+    }
+
+    @Test
+    void transaction_ShouldHaveNoTimeout_OutsideAnAttempt() {
+        int remaining = transactionTemplate.execute(status -> remainingTimeout());
+
+        assertEquals(-1, remaining);
+    }
+
+    @Test
+    void transaction_ShouldIssueNoStatement_AfterDeadline() {
+        long deadline = System.nanoTime() + Duration.ofMillis(200).toNanos();
+
+        assertThrows(RuntimeException.class, () -> LoanAttemptTimeouts.within(deadline,
+                () -> transactionTemplate.execute(status -> {
+                    sleep(Duration.ofMillis(1200));
+                    return entityManager.createNativeQuery("SELECT 1").getSingleResult();
+                })));
+    }
+
+    private int remainingTimeout() {
+        return entityManager.unwrap(SessionImplementor.class).getJdbcCoordinator()
+                .determineRemainingTransactionTimeOutPeriod();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
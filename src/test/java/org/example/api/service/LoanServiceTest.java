@@ -0,0 +1,288 @@
+package org.example.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.api.config.BorrowConfig;
+import org.example.api.dto.BatchLoanRequest;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.LoanItemResultDTO;
+import org.example.api.dto.ReturnRequest;
+import org.example.api.entity.Book;
+import org.example.api.entity.Inventory;
+import org.example.api.entity.User;
+import org.example.api.exception.ConflictException;
+import org.example.api.mapper.LibraryMapper;
+import org.example.api.repository.BookRepository;
+import org.example.api.repository.InventoryRepository;
+import org.example.api.repository.UserIdentity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.orm.jpa.JpaSystemException;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(
+        properties = {
+                "spring.liquibase.enabled=false",
+                "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+                "library.borrow.retry.initial-delay=20ms",
+                "library.borrow.retry.max-delay=50ms"
+        },
+        classes = {LoanService.class, LoanRetryExecutor.class, InventoryLocks.class, BookService.class,
+                BorrowConfig.class, LoanMetrics.class, SimpleMeterRegistry.class}
+)
+@ImportAutoConfiguration(TaskExecutionAutoConfiguration.class)
+class LoanServiceTest {
+    @MockBean
+    private InventoryRepository inventoryRepository;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private LibraryMapper libraryMapper;
+
+    @MockBean
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private UUID inventoryId;
+    private UUID userId;
+    private User user;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        inventoryId = UUID.randomUUID();
+        userId = UUID.randomUUID();
+
+        Book book = new Book();
+        book.setId(UUID.randomUUID());
+
+        user = new User();
+        user.setId(userId);
+
+        inventory = new Inventory();
+        inventory.setId(inventoryId);
+        inventory.setBook(book);
+    }
+
+    @Nested
+    @DisplayName("Retry Tests")
+    class RetryTests {
+        @Test
+        void borrowBook_ShouldRetryAndSucceed() {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
+                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
+                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
+                    .thenReturn(Optional.of(inventory));
+            when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+            when(userService.getUserReference(userId)).thenReturn(user);
+
+            loanService.borrowBook(request).join();
+
+            verify(inventoryRepository, times(3)).findByIdWithPessimisticLock(inventoryId);
+
+            ArgumentCaptor<Inventory> inventoryCaptor = ArgumentCaptor.forClass(Inventory.class);
+            verify(inventoryRepository).save(inventoryCaptor.capture());
+            Inventory savedInventory = inventoryCaptor.getValue();
+
+            assertEquals(user, savedInventory.getUser());
+            assertNotNull(savedInventory.getLoanDate());
+        }
+
+        @Test
+        void borrowBook_ShouldFailAfterMaxRetries() {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
+                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()));
+
+            ConflictException exception = assertFailsWith(ConflictException.class,
+                    () -> loanService.borrowBook(request).join());
+            assertEquals("Unable to complete borrow operation. Please try again later.", exception.getMessage());
+            verify(inventoryRepository, times(3)).findByIdWithPessimisticLock(inventoryId);
+        }
+
+        @Test
+        void returnBook_ShouldRetryAndSucceed() {
+            ReturnRequest request = new ReturnRequest(userId, inventoryId);
+            inventory.setUser(user);
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
+                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
+                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
+                    .thenReturn(Optional.of(inventory));
+
+            loanService.returnBook(request).join();
+
+            verify(inventoryRepository, times(3)).findByIdWithPessimisticLock(inventoryId);
+            ArgumentCaptor<Inventory> inventoryCaptor = ArgumentCaptor.forClass(Inventory.class);
+            verify(inventoryRepository).save(inventoryCaptor.capture());
+
+            Inventory savedInventory = inventoryCaptor.getValue();
+            assertNull(savedInventory.getUser());
+            assertNull(savedInventory.getLoanDate());
+        }
+
+        @Test
+        void returnBook_ShouldFailAfterMaxRetries() {
+            ReturnRequest request = new ReturnRequest(userId, inventoryId);
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
+                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()));
+
+            ConflictException exception = assertFailsWith(ConflictException.class,
+                    () -> loanService.returnBook(request).join());
+            assertEquals("Unable to complete return operation. Please try again later.", exception.getMessage());
+            verify(inventoryRepository, times(3)).findByIdWithPessimisticLock(inventoryId);
+        }
+
+        @Test
+        void borrowBooks_ShouldRetryWholeBatch_OnLockFailure() {
+            List<UUID> ids = List.of(inventoryId);
+            when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+            when(userService.getUserReference(userId)).thenReturn(user);
+            when(inventoryRepository.findAllByIdWithPessimisticLock(Set.copyOf(ids)))
+                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
+                    .thenReturn(List.of(inventory));
+
+            List<LoanItemResultDTO> results = loanService.borrowBooks(new BatchLoanRequest(userId, ids)).join();
+
+            assertEquals(LoanItemResultDTO.Status.OK, results.getFirst().status());
+            verify(inventoryRepository, times(2)).findAllByIdWithPessimisticLock(Set.copyOf(ids));
+        }
+
+        @Test
+        void borrowBook_ShouldRetry_WhenSqlStateIsDeadlock() {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
+                    .thenThrow(new JpaSystemException(new RuntimeException(new SQLException("deadlock", "40P01"))))
+                    .thenReturn(Optional.of(inventory));
+            when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+            when(userService.getUserReference(userId)).thenReturn(user);
+
+            loanService.borrowBook(request).join();
+
+            verify(inventoryRepository, times(2)).findByIdWithPessimisticLock(inventoryId);
+        }
+
+        @Test
+        void borrowBook_ShouldNotRetry_WhenConstraintViolated() {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
+                    .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+            assertFailsWith(ConflictException.class, () -> loanService.borrowBook(request).join());
+            verify(inventoryRepository, times(1)).findByIdWithPessimisticLock(inventoryId);
+        }
+
+        @Test
+        void borrowBook_ShouldNotRetry_WhenConflict() {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+            inventory.setUser(new User());
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId)).thenReturn(Optional.of(inventory));
+
+            ConflictException exception = assertFailsWith(ConflictException.class,
+                    () -> loanService.borrowBook(request).join());
+            assertEquals("Book is already borrowed", exception.getMessage());
+            verify(inventoryRepository, times(1)).findByIdWithPessimisticLock(inventoryId);
+        }
+
+        @Test
+        void borrowBook_ShouldNotBlockCaller_WhileBackingOff() {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
+                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()))
+                    .thenReturn(Optional.of(inventory));
+            when(userService.getUserIdentity(userId)).thenReturn(new UserIdentity(userId, "testuser", "USER"));
+            when(userService.getUserReference(userId)).thenReturn(user);
+
+            CompletableFuture<Void> result = loanService.borrowBook(request);
+
+            assertFalse(result.isDone());
+            result.join();
+            verify(inventoryRepository, times(2)).findByIdWithPessimisticLock(inventoryId);
+        }
+    }
+
+    @Nested
+    @DisplayName("Metrics Tests")
+    class MetricsTests {
+        @Test
+        void borrowBook_ShouldRecordRetriesAndRecoveredFailure() {
+            BorrowRequest request = new BorrowRequest(userId, inventoryId);
+            Timer recovered = meterRegistry.get("library.loan.operations")
+                    .tags("operation", "borrow", "outcome", "recovered_failure").timer();
+            Counter retries = meterRegistry.get("library.loan.retries").tag("operation", "borrow").counter();
+            Counter recoveries = meterRegistry.get("library.loan.recoveries").tag("operation", "borrow").counter();
+            long recoveredBefore = recovered.count();
+            double retriesBefore = retries.count();
+            double recoveriesBefore = recoveries.count();
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId))
+                    .thenThrow(new PessimisticLockingFailureException("Lock failed", new SQLException()));
+
+            assertFailsWith(ConflictException.class, () -> loanService.borrowBook(request).join());
+
+            assertEquals(recoveredBefore + 1, recovered.count());
+            assertEquals(retriesBefore + 2, retries.count());
+            assertEquals(recoveriesBefore + 1, recoveries.count());
+        }
+
+        @Test
+        void returnBook_ShouldRecordConflict_WithoutRecovery() {
+            ReturnRequest request = new ReturnRequest(userId, inventoryId);
+            Timer conflicts = meterRegistry.get("library.loan.operations")
+                    .tags("operation", "return", "outcome", "conflict").timer();
+            Counter recoveries = meterRegistry.get("library.loan.recoveries").tag("operation", "return").counter();
+            long conflictsBefore = conflicts.count();
+            double recoveriesBefore = recoveries.count();
+
+            when(inventoryRepository.findByIdWithPessimisticLock(inventoryId)).thenReturn(Optional.of(inventory));
+
+            assertFailsWith(ConflictException.class, () -> loanService.returnBook(request).join());
+
+            assertEquals(conflictsBefore + 1, conflicts.count());
+            assertEquals(recoveriesBefore, recoveries.count());
+        }
+    }
+
+    private static <T extends Throwable> T assertFailsWith(Class<T> type, Executable executable) {
+        CompletionException exception = assertThrows(CompletionException.class, executable);
+        return assertInstanceOf(type, exception.getCause());
+    }
+}
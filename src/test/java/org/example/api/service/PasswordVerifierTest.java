@@ -0,0 +1,98 @@
+package org.example.api.service;
+
+import org.example.api.config.LibraryAuthProperties;
+import org.example.api.config.PasswordConfig;
+import org.example.api.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PasswordVerifierTest {
+    private LibraryAuthProperties properties;
+    private PasswordEncoder passwordEncoder;
+    private PasswordVerifier passwordVerifier;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LibraryAuthProperties(4,
+                new LibraryAuthProperties.Hashing(1, 1),
+                new LibraryAuthProperties.Verified(Duration.ofMinutes(1), 100),
+                new LibraryAuthProperties.Tokens(Duration.ofHours(1), null, null));
+        passwordEncoder = spy(new PasswordConfig().passwordEncoder(properties));
+        passwordVerifier = new PasswordVerifier(passwordEncoder, properties);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        passwordVerifier.shutdown();
+    }
+
+    @Test
+    void verify_ShouldSkipHashing_WhenRecentlyVerified() {
+        String storedHash = passwordEncoder.encode("password");
+        clearInvocations(passwordEncoder);
+
+        assertTrue(passwordVerifier.verify("user", "password", storedHash).join().matches());
+        assertTrue(passwordVerifier.verify("user", "password", storedHash).join().matches());
+
+        verify(passwordEncoder, times(1)).matches(any(), anyString());
+    }
+
+    @Test
+    void verify_ShouldNotReuseVerification_ForDifferentPassword() {
+        String storedHash = passwordEncoder.encode("password");
+        passwordVerifier.verify("user", "password", storedHash).join();
+
+        assertFalse(passwordVerifier.verify("user", "wrongpassword", storedHash).join().matches());
+    }
+
+    @Test
+    void verify_ShouldReturnUpgradedHash_ForLegacyPlaintext() {
+        PasswordVerifier.Verification verification = passwordVerifier.verify("user", "password", "password").join();
+
+        assertTrue(verification.matches());
+        assertTrue(verification.upgradedHash().startsWith("{bcrypt}"));
+        assertTrue(passwordEncoder.matches("password", verification.upgradedHash()));
+    }
+
+    @Test
+    void verify_ShouldReject_UnknownUser() {
+        assertFalse(passwordVerifier.verify("nobody", "password", null).join().matches());
+    }
+
+    @Test
+    void verify_ShouldThrowServiceUnavailable_WhenQueueIsFull() throws Exception {
+        CountDownLatch hashing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            hashing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(passwordEncoder).matches(any(), anyString());
+
+        List<CompletableFuture<PasswordVerifier.Verification>> accepted = new ArrayList<>();
+        accepted.add(passwordVerifier.verify("a", "password", "password"));
+        assertTrue(hashing.await(5, TimeUnit.SECONDS));
+        accepted.add(passwordVerifier.verify("b", "password", "password"));
+
+        ServiceUnavailableException exception = assertThrows(ServiceUnavailableException.class,
+                () -> passwordVerifier.verify("c", "password", "password"));
+        assertEquals(Duration.ofSeconds(1), exception.getRetryAfter());
+
+        release.countDown();
+        accepted.forEach(CompletableFuture::join);
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.api.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.api.config.CacheConfig;
+import org.example.api.dto.BookDetailsDTO;
+import org.example.api.dto.BorrowRequest;
+import org.example.api.dto.ReturnRequest;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures the SQL statements issued by {@link BookService#getBookById} with a cold and a warm
+ * second-level cache. The book details cache is cleared before every call so each one reaches Hibernate,
+ * and a copy lent by a test is returned after it so the shared database is left as it was found.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+class SecondLevelCacheQueryCountTest {
+    private static final UUID LEARNING_GO = UUID.fromString("50811f5f-33ad-40b4-b775-f055212bcb74");
+    private static final UUID REACT_COOKBOOK = UUID.fromString("1b1248ca-14e0-4dc9-a0e7-e1eabdf02c36");
+    private static final UUID REACT_COOKBOOK_COPY = UUID.fromString("9430b459-8178-4137-aa00-7452ee966e16");
+    private static final UUID USER_ID = UUID.fromString("2e1273f4-f574-4807-929e-d7c002643981");
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private Statistics statistics;
+    private boolean lent;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @AfterEach
+    void returnLentCopy() {
+        if (lent) {
+            bookService.returnBook(new ReturnRequest(USER_ID, REACT_COOKBOOK_COPY));
+        }
+    }
+
+    @Test
+    void getBookById_ShouldIssueNoStatements_WhenSecondLevelCacheWarm() {
+        long cold = countStatements(() -> bookService.getBookById(LEARNING_GO));
+        long warm = countStatements(() -> bookService.getBookById(LEARNING_GO));
+
+        assertEquals(2, cold, "book and its copies");
+        assertEquals(0, warm, "all from the second-level cache");
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+    }
+
+    @Test
+    void getBookById_ShouldOnlyLoadBorrowers_WhenSecondLevelCacheWarm() {
+        bookService.borrowBook(new BorrowRequest(USER_ID, REACT_COOKBOOK_COPY));
+        lent = true;
+        entityManagerFactory.getCache().evictAll();
+
+        long cold = countStatements(() -> bookService.getBookById(REACT_COOKBOOK));
+        BookDetailsDTO[] result = new BookDetailsDTO[1];
+        long warm = countStatements(() -> result[0] = bookService.getBookById(REACT_COOKBOOK));
+
+        assertEquals(3, cold, "book, its copies and the borrower");
+        assertEquals(1, warm, "only the borrower, which is not cached");
+        assertTrue(result[0].inventories().stream()
+                .anyMatch(copy -> copy.user() != null && USER_ID.equals(copy.user().id())));
+    }
+
+    private long countStatements(Supplier<BookDetailsDTO> call) {
+        cacheManager.getCache(CacheConfig.BOOK_DETAILS).clear();
+        statistics.clear();
+        call.get();
+        return statistics.getPrepareStatementCount();
+    }
+}
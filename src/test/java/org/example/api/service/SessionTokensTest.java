@@ -0,0 +1,73 @@
+package org.example.api.service;
+
+import org.example.api.config.LibraryAuthProperties;
+import org.example.api.repository.UserIdentity;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionTokensTest {
+    private static final String OLD_KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String NEW_KEY = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    private final UserIdentity identity = new UserIdentity(UUID.randomUUID(), "user|name", "USER");
+
+    @Test
+    void verify_ShouldReturnIdentity_ForIssuedToken() {
+        SessionTokens tokens = tokens(Duration.ofHours(1), "k1", Map.of("k1", OLD_KEY));
+
+        SessionTokens.Issued issued = tokens.issue(identity);
+
+        assertTrue(issued.token().startsWith("k1."));
+        assertEquals(Optional.of(identity), tokens.verify(issued.token()));
+    }
+
+    @Test
+    void verify_ShouldReject_TamperedToken() {
+        SessionTokens tokens = tokens(Duration.ofHours(1), "k1", Map.of("k1", OLD_KEY));
+        String[] parts = tokens.issue(identity).token().split("\\.");
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((identity.id() + "|ADMIN|9999999999|user").getBytes());
+
+        assertTrue(tokens.verify(parts[0] + "." + forged + "." + parts[2]).isEmpty());
+        assertTrue(tokens.verify("not-a-token").isEmpty());
+        assertTrue(tokens.verify("k1.%%%.%%%").isEmpty());
+    }
+
+    @Test
+    void verify_ShouldReject_ExpiredToken() {
+        SessionTokens tokens = tokens(Duration.ZERO, "k1", Map.of("k1", OLD_KEY));
+
+        assertTrue(tokens.verify(tokens.issue(identity).token()).isEmpty());
+    }
+
+    @Test
+    void verify_ShouldAcceptTokensOfRetiringKey_AfterRotation() {
+        String oldToken = tokens(Duration.ofHours(1), "k1", Map.of("k1", OLD_KEY)).issue(identity).token();
+
+        SessionTokens rotated = tokens(Duration.ofHours(1), "k2", Map.of("k1", OLD_KEY, "k2", NEW_KEY));
+        assertEquals(Optional.of(identity), rotated.verify(oldToken));
+        assertTrue(rotated.issue(identity).token().startsWith("k2."));
+
+        SessionTokens retired = tokens(Duration.ofHours(1), "k2", Map.of("k2", NEW_KEY));
+        assertTrue(retired.verify(oldToken).isEmpty());
+    }
+
+    @Test
+    void constructor_ShouldFail_WhenActiveKeyIsMissing() {
+        assertThrows(IllegalStateException.class, () -> tokens(Duration.ofHours(1), "k2", Map.of("k1", OLD_KEY)));
+    }
+
+    private static SessionTokens tokens(Duration ttl, String activeKey, Map<String, String> keys) {
+        return new SessionTokens(new LibraryAuthProperties(4,
+                new LibraryAuthProperties.Hashing(1, 1),
+                new LibraryAuthProperties.Verified(Duration.ofMinutes(1), 1),
+                new LibraryAuthProperties.Tokens(ttl, activeKey, keys)));
+    }
+}
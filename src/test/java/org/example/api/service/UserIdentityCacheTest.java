@@ -0,0 +1,71 @@
+package org.example.api.service;
+
+import org.example.api.config.CacheConfig;
+import org.example.api.repository.InventoryRepository;
+import org.example.api.repository.UserIdentity;
+import org.example.api.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(
+        properties = {
+                "spring.liquibase.enabled=false",
+                "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration"
+        },
+        classes = {UserService.class, CacheConfig.class}
+)
+class UserIdentityCacheTest {
+    @MockBean
+    private UserRepository userRepository;
+
+    @MockBean
+    private InventoryRepository inventoryRepository;
+
+    @MockBean
+    private PasswordVerifier passwordVerifier;
+
+    @MockBean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor executor;
+
+    @Autowired
+    private UserService userService;
+
+    private UUID userId;
+    private UserIdentity identity;
+
+    @BeforeEach
+    void setUp() {
+        userService.evictAllUserIdentities();
+        userId = UUID.randomUUID();
+        identity = new UserIdentity(userId, "user", "USER");
+        when(userRepository.findIdentityById(userId)).thenReturn(Optional.of(identity));
+    }
+
+    @Test
+    void getUserIdentity_ShouldHitRepositoryOnce() {
+        assertEquals(identity, userService.getUserIdentity(userId));
+        assertEquals(identity, userService.getUserIdentity(userId));
+
+        verify(userRepository, times(1)).findIdentityById(userId);
+    }
+
+    @Test
+    void evictUserIdentity_ShouldReloadOnNextLookup() {
+        userService.getUserIdentity(userId);
+        userService.evictUserIdentity(userId);
+        userService.getUserIdentity(userId);
+
+        verify(userRepository, times(2)).findIdentityById(userId);
+    }
+}
@@ -1,21 +1,35 @@
 package org.example.api.service;
 
+import org.example.api.config.LibraryAuthProperties;
+import org.example.api.config.PasswordConfig;
+import org.example.api.entity.Inventory;
 import org.example.api.entity.User;
 import org.example.api.exception.ResourceNotFoundException;
+import org.example.api.repository.InventoryRepository;
+import org.example.api.repository.UserIdentity;
 import org.example.api.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -24,7 +38,10 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    private PasswordEncoder passwordEncoder;
     private UserService userService;
 
     private UUID userId;
@@ -34,6 +51,14 @@ class UserServiceTest {
 
     @BeforeEach
     void setUp() {
+        LibraryAuthProperties properties = new LibraryAuthProperties(4,
+                new LibraryAuthProperties.Hashing(1, 8),
+                new LibraryAuthProperties.Verified(Duration.ofMinutes(1), 100),
+                new LibraryAuthProperties.Tokens(Duration.ofHours(1), null, null));
+        passwordEncoder = new PasswordConfig().passwordEncoder(properties);
+        userService = new UserService(userRepository, inventoryRepository,
+                new PasswordVerifier(passwordEncoder, properties),
+                command -> Thread.ofPlatform().name("task-").start(command));
         userId = UUID.randomUUID();
         username = "testuser";
         password = "password";
@@ -67,6 +92,38 @@ class UserServiceTest {
             assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(userId));
             verify(userRepository).findById(userId);
         }
+
+        @Test
+        void getUserIdentity_ShouldReturnIdentity_WhenExists() {
+            UserIdentity identity = new UserIdentity(userId, username, "USER");
+            when(userRepository.findIdentityById(userId)).thenReturn(Optional.of(identity));
+
+            assertEquals(identity, userService.getUserIdentity(userId));
+            verify(userRepository).findIdentityById(userId);
+        }
+
+        @Test
+        void getUserIdentity_ShouldThrowException_WhenNotFound() {
+            when(userRepository.findIdentityById(userId)).thenReturn(Optional.empty());
+
+            assertThrows(ResourceNotFoundException.class, () -> userService.getUserIdentity(userId));
+        }
+
+        @Test
+        void getUserReference_ShouldNotLoadUserRow() {
+            when(userRepository.getReferenceById(userId)).thenReturn(user);
+
+            assertEquals(user, userService.getUserReference(userId));
+            verify(userRepository, never()).findById(any());
+        }
+
+        @Test
+        void getLoans_ShouldReturnInventoriesOfUser() {
+            Inventory loan = new Inventory();
+            when(inventoryRepository.findByUserId(userId)).thenReturn(List.of(loan));
+
+            assertEquals(List.of(loan), userService.getLoans(userId));
+        }
     }
 
     @Nested
@@ -76,7 +133,7 @@ class UserServiceTest {
         void validateCredentials_ShouldReturnUser_WhenValid() {
             when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
 
-            User result = userService.validateCredentials(username, password);
+            User result = userService.validateCredentials(username, password).join();
 
             assertNotNull(result);
             assertEquals(userId, result.getId());
@@ -88,8 +145,9 @@ class UserServiceTest {
         void validateCredentials_ShouldThrowException_WhenUserNotFound() {
             when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
 
-            assertThrows(ResourceNotFoundException.class,
-                    () -> userService.validateCredentials(username, password));
+            CompletionException exception = assertThrows(CompletionException.class,
+                    () -> userService.validateCredentials(username, password).join());
+            assertInstanceOf(ResourceNotFoundException.class, exception.getCause());
             verify(userRepository).findByUsername(username);
         }
 
@@ -97,9 +155,35 @@ class UserServiceTest {
         void validateCredentials_ShouldThrowException_WhenPasswordInvalid() {
             when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
 
-            assertThrows(ResourceNotFoundException.class,
-                    () -> userService.validateCredentials(username, "wrongpassword"));
+            CompletionException exception = assertThrows(CompletionException.class,
+                    () -> userService.validateCredentials(username, "wrongpassword").join());
+            assertInstanceOf(ResourceNotFoundException.class, exception.getCause());
             verify(userRepository).findByUsername(username);
+            verify(userRepository, never()).updatePassword(any(), any(), any());
+        }
+
+        @Test
+        void validateCredentials_ShouldUpgradePlaintextPassword_ToBcrypt() {
+            when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+            AtomicReference<String> upgradeThread = new AtomicReference<>();
+            when(userRepository.updatePassword(eq(userId), eq(password), startsWith("{bcrypt}"))).thenAnswer(invocation -> {
+                upgradeThread.set(Thread.currentThread().getName());
+                return 1;
+            });
+
+            userService.validateCredentials(username, password).join();
+
+            verify(userRepository).updatePassword(eq(userId), eq(password), startsWith("{bcrypt}"));
+            assertEquals("task-", upgradeThread.get());
+        }
+
+        @Test
+        void validateCredentials_ShouldNotUpgrade_WhenHashIsCurrent() {
+            user.setPassword(passwordEncoder.encode(password));
+            when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+
+            assertEquals(user, userService.validateCredentials(username, password).join());
+            verify(userRepository, never()).updatePassword(any(), anyString(), anyString());
         }
     }
-}
\ No newline at end of file
+}